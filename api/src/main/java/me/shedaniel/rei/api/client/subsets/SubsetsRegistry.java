@@ -43,7 +43,7 @@ public interface SubsetsRegistry extends Reloadable<REIClientPlugin> {
     }
     
     /**
-     * Gets all paths an entry is in, note that this is a really slow call as it looks through all paths.
+     * Gets all paths an entry is in, the paths are looked up by the exact hash of the entry.
      */
     List<String> getEntryPaths(EntryStack<?> stack);
     
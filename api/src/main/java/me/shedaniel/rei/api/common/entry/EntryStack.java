@@ -31,6 +31,7 @@ import me.shedaniel.rei.api.client.entry.renderer.EntryRenderer;
 import me.shedaniel.rei.api.client.entry.renderer.EntryRendererRegistry;
 import me.shedaniel.rei.api.client.gui.Renderer;
 import me.shedaniel.rei.api.client.gui.widgets.Tooltip;
+import me.shedaniel.rei.api.common.entry.comparison.ComparisonContext;
 import me.shedaniel.rei.api.common.entry.type.EntryDefinition;
 import me.shedaniel.rei.api.common.entry.type.EntryType;
 import me.shedaniel.rei.api.common.entry.type.EntryTypeRegistry;
@@ -177,6 +178,18 @@ public interface EntryStack<T> extends TextRepresentable, Renderer {
     
     Stream<TagKey<?>> getTagsFor();
     
+    /**
+     * Returns the hash of the stack for the {@code context}, implementations may cache the exact and fuzzy hashes.
+     * Use {@link me.shedaniel.rei.api.common.util.EntryStacks#hash(EntryStack, ComparisonContext)} instead.
+     *
+     * @param context the context to use
+     * @return the hash of the stack
+     */
+    @ApiStatus.Internal
+    default long hash(ComparisonContext context) {
+        return getDefinition().hash(this, getValue(), context);
+    }
+    
     @Deprecated
     int hashCode();
     
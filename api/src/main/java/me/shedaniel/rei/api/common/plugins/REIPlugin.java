@@ -126,4 +126,22 @@ public interface REIPlugin<P extends REIPlugin<?>> extends Comparable<REIPlugin<
     default boolean shouldBeForcefullyDoneOnMainThread(Reloadable<?> reloadable) {
         return false;
     }
+    
+    /**
+     * Returns whether the registration of this plugin to {@code reloadable} is thread-safe, and does not depend on
+     * the registrations of other plugins. When parallel reloading is enabled, such plugins may be reloaded concurrently,
+     * the registrations are still applied in the order of the plugins.
+     * <p>
+     * The registrations of concurrently reloaded plugins are only applied after every plugin of the batch has finished
+     * registering, so such a plugin only sees the registry state from before the batch: it does not see its own registrations
+     * or those of the other plugins in the batch, e.g. {@code DisplayRegistry#add(Object)} does not use the fillers registered
+     * within the batch, and {@code DisplayRegistry#displaySize()} does not count the displays added within the batch.
+     *
+     * @param reloadable the reloadable to register to
+     * @return whether the registration may run concurrently with other plugins
+     */
+    @ApiStatus.Experimental
+    default boolean isConcurrentlyReloadable(Reloadable<?> reloadable) {
+        return false;
+    }
 }
@@ -23,7 +23,6 @@
 
 package me.shedaniel.rei.api.common.transfer;
 
-import com.google.common.collect.Lists;
 import it.unimi.dsi.fastutil.ints.*;
 import net.minecraft.core.NonNullList;
 import net.minecraft.core.Registry;
@@ -33,11 +32,14 @@ import net.minecraft.world.item.crafting.Ingredient;
 import org.jetbrains.annotations.Nullable;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.BitSet;
 import java.util.List;
 
 public class RecipeFinder {
     public final Int2IntMap idToAmountMap = new Int2IntOpenHashMap();
+    @Nullable
+    private Filter lastFilter;
     
     public static int getItemId(ItemStack stack) {
         return Registry.ITEM.getId(stack.getItem());
@@ -94,7 +96,7 @@ public class RecipeFinder {
     }
     
     public boolean findRecipe(NonNullList<Ingredient> ingredients, @Nullable IntList intList_1, int int_1) {
-        return (new RecipeFinder.Filter(ingredients)).find(int_1, intList_1);
+        return this.filter(ingredients).find(int_1, intList_1);
     }
     
     public int countRecipeCrafts(NonNullList<Ingredient> ingredients, @Nullable IntList intList_1) {
@@ -102,237 +104,259 @@ public class RecipeFinder {
     }
     
     public int countRecipeCrafts(NonNullList<Ingredient> ingredients, int int_1, @Nullable IntList intList_1) {
-        return (new RecipeFinder.Filter(ingredients)).countCrafts(int_1, intList_1);
+        return this.filter(ingredients).countCrafts(int_1, intList_1);
     }
     
     public void clear() {
         this.idToAmountMap.clear();
+        this.lastFilter = null;
     }
     
+    /**
+     * Returns the filter of the ingredients, the last filter is reused as long as the ingredients
+     * and the items available for them are the same.
+     */
+    private Filter filter(NonNullList<Ingredient> ingredients) {
+        Filter filter = this.lastFilter;
+        if (filter == null || !filter.isValid(ingredients)) {
+            this.lastFilter = filter = new Filter(ingredients);
+        }
+        return filter;
+    }
+    
+    /**
+     * Matches the ingredients to the available items with augmenting paths, like {@link net.minecraft.world.entity.player.StackedContents},
+     * the edges are stored as adjacency arrays, and the matching as the matched item of each ingredient.
+     */
     class Filter {
-        private final List<Ingredient> ingredients = Lists.newArrayList();
+        private final Ingredient[] ingredientsInput;
+        private final IntList[] ingredientItemIds;
         private final int ingredientCount;
+        private final int[] candidateItemIds;
+        private final BitSet usableCandidates;
         private final int[] usableIngredientItemIds;
-        private final int usableIngredientSize;
-        private final BitSet bitSet;
-        private final IntList field_7557 = new IntArrayList();
-        private final NonNullList<Ingredient> ingredientsInput;
+        private final int[][] itemIngredients;
+        private final int[] matchedItems;
+        private final boolean[] satisfiedIngredients;
+        private final boolean[] visitedIngredients;
+        private final boolean[] visitedItems;
+        private final IntArrayList path = new IntArrayList();
         
         public Filter(NonNullList<Ingredient> ingredientsInput) {
-            this.ingredientsInput = ingredientsInput;
-            this.ingredients.addAll(new ArrayList<>(ingredientsInput));
-            this.ingredients.removeIf(Ingredient::isEmpty);
-            this.ingredientCount = this.ingredients.size();
-            this.usableIngredientItemIds = this.getUsableIngredientItemIds();
-            this.usableIngredientSize = this.usableIngredientItemIds.length;
-            this.bitSet = new BitSet(this.ingredientCount + this.usableIngredientSize + this.ingredientCount + this.ingredientCount * this.usableIngredientSize);
+            this.ingredientsInput = ingredientsInput.toArray(new Ingredient[0]);
+            List<IntList> ingredientItemIds = new ArrayList<>();
+            for (Ingredient ingredient : this.ingredientsInput) {
+                if (!ingredient.isEmpty()) {
+                    ingredientItemIds.add(ingredient.getStackingIds());
+                }
+            }
+            this.ingredientItemIds = ingredientItemIds.toArray(new IntList[0]);
+            this.ingredientCount = this.ingredientItemIds.length;
             
-            for (int ingredientIndex = 0; ingredientIndex < this.ingredients.size(); ++ingredientIndex) {
-                IntList possibleStacks = this.ingredients.get(ingredientIndex).getStackingIds();
-                
-                // Loops over usable ingredients
-                for (int usableIngredientIndex = 0; usableIngredientIndex < this.usableIngredientSize; ++usableIngredientIndex) {
-                    if (possibleStacks.contains(this.usableIngredientItemIds[usableIngredientIndex])) {
-                        this.bitSet.set(this.method_7420(true, usableIngredientIndex, ingredientIndex));
+            IntOpenHashSet candidates = new IntOpenHashSet();
+            for (IntList itemIds : this.ingredientItemIds) {
+                candidates.addAll(itemIds);
+            }
+            this.candidateItemIds = candidates.toIntArray();
+            Arrays.sort(this.candidateItemIds);
+            this.usableCandidates = new BitSet(this.candidateItemIds.length);
+            IntList usableItemIds = new IntArrayList();
+            for (int i = 0; i < this.candidateItemIds.length; i++) {
+                if (RecipeFinder.this.contains(this.candidateItemIds[i])) {
+                    this.usableCandidates.set(i);
+                    usableItemIds.add(this.candidateItemIds[i]);
+                }
+            }
+            this.usableIngredientItemIds = usableItemIds.toIntArray();
+            
+            Int2IntMap usableIndices = new Int2IntOpenHashMap(this.usableIngredientItemIds.length);
+            usableIndices.defaultReturnValue(-1);
+            IntArrayList[] itemIngredients = new IntArrayList[this.usableIngredientItemIds.length];
+            for (int i = 0; i < this.usableIngredientItemIds.length; i++) {
+                usableIndices.put(this.usableIngredientItemIds[i], i);
+                itemIngredients[i] = new IntArrayList();
+            }
+            for (int ingredientIndex = 0; ingredientIndex < this.ingredientCount; ingredientIndex++) {
+                IntListIterator iterator = this.ingredientItemIds[ingredientIndex].iterator();
+                while (iterator.hasNext()) {
+                    int itemIndex = usableIndices.get(iterator.nextInt());
+                    if (itemIndex != -1) {
+                        IntArrayList list = itemIngredients[itemIndex];
+                        // ingredients are visited in order, so a repeated item is always the last element
+                        if (list.isEmpty() || list.getInt(list.size() - 1) != ingredientIndex) {
+                            list.add(ingredientIndex);
+                        }
                     }
                 }
             }
+            this.itemIngredients = new int[itemIngredients.length][];
+            for (int i = 0; i < itemIngredients.length; i++) {
+                this.itemIngredients[i] = itemIngredients[i].toIntArray();
+            }
             
+            this.matchedItems = new int[this.ingredientCount];
+            Arrays.fill(this.matchedItems, -1);
+            this.satisfiedIngredients = new boolean[this.ingredientCount];
+            this.visitedIngredients = new boolean[this.ingredientCount];
+            this.visitedItems = new boolean[this.usableIngredientItemIds.length];
+        }
+        
+        /**
+         * Returns whether this filter can be reused for the ingredients, the items available for the ingredients must not have changed.
+         */
+        private boolean isValid(NonNullList<Ingredient> ingredients) {
+            if (ingredients.size() != ingredientsInput.length) return false;
+            for (int i = 0; i < ingredientsInput.length; i++) {
+                if (ingredients.get(i) != ingredientsInput[i]) return false;
+            }
+            for (int i = 0; i < candidateItemIds.length; i++) {
+                if (RecipeFinder.this.contains(candidateItemIds[i]) != usableCandidates.get(i)) return false;
+            }
+            return true;
         }
         
-        @SuppressWarnings("deprecation")
         public boolean find(int int_1, @Nullable IntList intList_1) {
             if (int_1 <= 0) {
                 return true;
-            } else {
-                int int_2;
-                for (int_2 = 0; this.method_7423(int_1); ++int_2) {
-                    RecipeFinder.this.take(this.usableIngredientItemIds[this.field_7557.getInt(0)], int_1);
-                    int int_3 = this.field_7557.size() - 1;
-                    this.method_7421(this.field_7557.getInt(int_3));
-                    
-                    for (int int_4 = 0; int_4 < int_3; ++int_4) {
-                        this.method_7414((int_4 & 1) == 0, this.field_7557.get(int_4), this.field_7557.get(int_4 + 1));
-                    }
-                    
-                    this.field_7557.clear();
-                    this.bitSet.clear(0, this.ingredientCount + this.usableIngredientSize);
-                }
-                
-                boolean boolean_1 = int_2 == this.ingredientCount;
-                boolean boolean_2 = boolean_1 && intList_1 != null;
-                if (boolean_2) {
-                    intList_1.clear();
-                }
-                
-                this.bitSet.clear(0, this.ingredientCount + this.usableIngredientSize + this.ingredientCount);
-                int int_5 = 0;
-                List<Ingredient> list_1 = new ArrayList<>(ingredientsInput);
+            }
+            
+            int found;
+            for (found = 0; this.findPath(int_1); ++found) {
+                RecipeFinder.this.take(this.usableIngredientItemIds[this.path.getInt(0)], int_1);
+                this.satisfiedIngredients[this.path.getInt(this.path.size() - 1)] = true;
                 
-                for (Ingredient ingredient : list_1) {
-                    if (boolean_2 && ingredient.isEmpty()) {
-                        intList_1.add(0);
-                    } else {
-                        for (int int_7 = 0; int_7 < this.usableIngredientSize; ++int_7) {
-                            if (this.method_7425(false, int_5, int_7)) {
-                                this.method_7414(true, int_7, int_5);
-                                RecipeFinder.this.addItem(this.usableIngredientItemIds[int_7], int_1);
-                                if (boolean_2) {
-                                    intList_1.add(this.usableIngredientItemIds[int_7]);
-                                }
-                            }
-                        }
-                        
-                        ++int_5;
-                    }
+                // the ingredients on the path are matched to the item before them
+                for (int i = 1; i < this.path.size(); i += 2) {
+                    this.matchedItems[this.path.getInt(i)] = this.path.getInt(i - 1);
                 }
-                
-                return boolean_1;
             }
-        }
-        
-        private int[] getUsableIngredientItemIds() {
-            IntCollection intCollection_1 = new IntAVLTreeSet();
             
-            for (Ingredient ingredient_1 : this.ingredients) {
-                intCollection_1.addAll(ingredient_1.getStackingIds());
+            boolean success = found == this.ingredientCount;
+            boolean fillList = success && intList_1 != null;
+            if (fillList) {
+                intList_1.clear();
             }
             
-            IntIterator intIterator_1 = intCollection_1.iterator();
-            
-            while (intIterator_1.hasNext()) {
-                if (!RecipeFinder.this.contains(intIterator_1.nextInt())) {
-                    intIterator_1.remove();
+            // return the matched items
+            Arrays.fill(this.satisfiedIngredients, false);
+            int ingredientIndex = 0;
+            for (Ingredient ingredient : this.ingredientsInput) {
+                if (ingredient.isEmpty()) {
+                    if (fillList) {
+                        intList_1.add(0);
+                    }
+                } else {
+                    int itemIndex = this.matchedItems[ingredientIndex];
+                    if (itemIndex != -1) {
+                        this.matchedItems[ingredientIndex] = -1;
+                        RecipeFinder.this.addItem(this.usableIngredientItemIds[itemIndex], int_1);
+                        if (fillList) {
+                            intList_1.add(this.usableIngredientItemIds[itemIndex]);
+                        }
+                    }
+                    
+                    ingredientIndex++;
                 }
             }
             
-            return intCollection_1.toIntArray();
+            return success;
         }
         
-        private boolean method_7423(int int_1) {
-            int usableIngredientSize = this.usableIngredientSize;
-            
-            for (int int_3 = 0; int_3 < usableIngredientSize; ++int_3) {
-                if (RecipeFinder.this.idToAmountMap.get(this.usableIngredientItemIds[int_3]) >= int_1) {
-                    this.method_7413(false, int_3);
+        /**
+         * Finds an augmenting path from an item with at least {@code amount} available to an unsatisfied ingredient,
+         * the path alternates between items and ingredients, and is left in {@link #path}.
+         */
+        private boolean findPath(int amount) {
+            // the filter is reused, the failed search ending every find must not leave visited items behind
+            this.path.clear();
+            Arrays.fill(this.visitedIngredients, false);
+            Arrays.fill(this.visitedItems, false);
+            for (int start = 0; start < this.usableIngredientItemIds.length; ++start) {
+                if (RecipeFinder.this.idToAmountMap.get(this.usableIngredientItemIds[start]) < amount) {
+                    continue;
+                }
+                
+                this.visitedItems[start] = true;
+                this.path.add(start);
+                
+                while (!this.path.isEmpty()) {
+                    int size = this.path.size();
+                    int last = this.path.getInt(size - 1);
+                    boolean atItem = (size & 1) == 1;
+                    if (!atItem && !this.satisfiedIngredients[last]) {
+                        break;
+                    }
                     
-                    while (!this.field_7557.isEmpty()) {
-                        int int_4 = this.field_7557.size();
-                        boolean boolean_1 = (int_4 & 1) == 1;
-                        int int_5 = this.field_7557.getInt(int_4 - 1);
-                        if (!boolean_1 && !this.method_7416(int_5)) {
-                            break;
-                        }
-                        
-                        int int_6 = boolean_1 ? this.ingredientCount : usableIngredientSize;
-                        
-                        int int_8;
-                        for (int_8 = 0; int_8 < int_6; ++int_8) {
-                            if (!this.method_7426(boolean_1, int_8) && this.method_7418(boolean_1, int_5, int_8) && this.method_7425(boolean_1, int_5, int_8)) {
-                                this.method_7413(boolean_1, int_8);
+                    if (atItem) {
+                        // follow an unmatched edge to an ingredient
+                        for (int ingredientIndex : this.itemIngredients[last]) {
+                            if (!this.visitedIngredients[ingredientIndex] && this.matchedItems[ingredientIndex] != last) {
+                                this.visitedIngredients[ingredientIndex] = true;
+                                this.path.add(ingredientIndex);
                                 break;
                             }
                         }
-                        
-                        int_8 = this.field_7557.size();
-                        if (int_8 == int_4) {
-                            this.field_7557.removeInt(int_8 - 1);
+                    } else {
+                        // follow the matched edge back to an item
+                        int itemIndex = this.matchedItems[last];
+                        if (itemIndex != -1 && !this.visitedItems[itemIndex]) {
+                            this.visitedItems[itemIndex] = true;
+                            this.path.add(itemIndex);
                         }
                     }
                     
-                    if (!this.field_7557.isEmpty()) {
-                        return true;
+                    if (this.path.size() == size) {
+                        this.path.removeInt(size - 1);
                     }
                 }
+                
+                if (!this.path.isEmpty()) {
+                    return true;
+                }
             }
             
             return false;
         }
         
-        private boolean method_7416(int int_1) {
-            return this.bitSet.get(this.method_7419(int_1));
-        }
-        
-        private void method_7421(int int_1) {
-            this.bitSet.set(this.method_7419(int_1));
-        }
-        
-        private int method_7419(int int_1) {
-            return this.ingredientCount + this.usableIngredientSize + int_1;
-        }
-        
-        private boolean method_7418(boolean boolean_1, int int_1, int int_2) {
-            return this.bitSet.get(this.method_7420(boolean_1, int_1, int_2));
-        }
-        
-        private boolean method_7425(boolean boolean_1, int int_1, int int_2) {
-            return boolean_1 != this.bitSet.get(1 + this.method_7420(boolean_1, int_1, int_2));
-        }
-        
-        private void method_7414(boolean boolean_1, int int_1, int int_2) {
-            this.bitSet.flip(1 + this.method_7420(boolean_1, int_1, int_2));
-        }
-        
-        private int method_7420(boolean boolean_1, int int_1, int int_2) {
-            int int_3 = boolean_1 ? int_1 * this.ingredientCount + int_2 : int_2 * this.ingredientCount + int_1;
-            return this.ingredientCount + this.usableIngredientSize + this.ingredientCount + 2 * int_3;
-        }
-        
-        private void method_7413(boolean boolean_1, int int_1) {
-            this.bitSet.set(this.method_7424(boolean_1, int_1));
-            this.field_7557.add(int_1);
-        }
-        
-        private boolean method_7426(boolean boolean_1, int int_1) {
-            return this.bitSet.get(this.method_7424(boolean_1, int_1));
-        }
-        
-        private int method_7424(boolean boolean_1, int int_1) {
-            return (boolean_1 ? 0 : this.ingredientCount) + int_1;
-        }
-        
         public int countCrafts(int int_1, @Nullable IntList intList_1) {
             int int_2 = 0;
-            int int_3 = Math.min(int_1, this.method_7415()) + 1;
+            int int_3 = Math.min(int_1, this.getMaxCrafts()) + 1;
             
             while (true) {
-                while (true) {
-                    int int_4 = (int_2 + int_3) / 2;
-                    if (this.find(int_4, null)) {
-                        if (int_3 - int_2 <= 1) {
-                            if (int_4 > 0) {
-                                this.find(int_4, intList_1);
-                            }
-                            
-                            return int_4;
+                int int_4 = (int_2 + int_3) / 2;
+                if (this.find(int_4, null)) {
+                    if (int_3 - int_2 <= 1) {
+                        if (int_4 > 0) {
+                            this.find(int_4, intList_1);
                         }
                         
-                        int_2 = int_4;
-                    } else {
-                        int_3 = int_4;
+                        return int_4;
                     }
+                    
+                    int_2 = int_4;
+                } else {
+                    int_3 = int_4;
                 }
             }
         }
         
-        @SuppressWarnings("deprecation")
-        private int method_7415() {
-            int int_1 = Integer.MAX_VALUE;
+        /**
+         * Returns the upper bound of the crafts, every ingredient needs a single item with enough available.
+         */
+        private int getMaxCrafts() {
+            int maxCrafts = Integer.MAX_VALUE;
             
-            for (Ingredient ingredient_1 : this.ingredients) {
-                int int_2 = 0;
-                
-                int int_3;
-                for (IntListIterator var5 = ingredient_1.getStackingIds().iterator(); var5.hasNext(); int_2 = Math.max(int_2, RecipeFinder.this.idToAmountMap.get(int_3))) {
-                    int_3 = var5.next();
+            for (IntList itemIds : this.ingredientItemIds) {
+                int available = 0;
+                IntListIterator iterator = itemIds.iterator();
+                while (iterator.hasNext()) {
+                    available = Math.max(available, RecipeFinder.this.idToAmountMap.get(iterator.nextInt()));
                 }
                 
-                if (int_1 > 0) {
-                    int_1 = Math.min(int_1, int_2);
-                }
+                maxCrafts = Math.min(maxCrafts, available);
             }
             
-            return int_1;
+            return maxCrafts;
         }
     }
-}
\ No newline at end of file
+}
@@ -30,6 +30,7 @@ import me.shedaniel.rei.api.common.entry.EntryStack;
 import me.shedaniel.rei.api.common.entry.type.EntryDefinition;
 import me.shedaniel.rei.api.common.entry.type.EntryType;
 import me.shedaniel.rei.api.common.entry.type.VanillaEntryTypes;
+import me.shedaniel.rei.impl.Internals;
 import net.minecraft.nbt.ListTag;
 import net.minecraft.nbt.Tag;
 import net.minecraft.world.item.ItemStack;
@@ -105,14 +106,14 @@ public final class EntryIngredients {
         if (ingredient.isEmpty()) return EntryIngredient.empty();
         ItemStack[] matchingStacks = ingredient.getItems();
         if (matchingStacks.length == 0) return EntryIngredient.empty();
-        if (matchingStacks.length == 1) return EntryIngredient.of(EntryStacks.of(matchingStacks[0]));
+        if (matchingStacks.length == 1) return Internals.getEntryIngredientProvider().intern(EntryIngredient.of(EntryStacks.of(matchingStacks[0])));
         EntryIngredient.Builder result = EntryIngredient.builder(matchingStacks.length);
         for (ItemStack matchingStack : matchingStacks) {
             if (!matchingStack.isEmpty()) {
                 result.add(EntryStacks.of(matchingStack));
             }
         }
-        return result.build();
+        return Internals.getEntryIngredientProvider().intern(result.build());
     }
     
     public static List<EntryIngredient> ofIngredients(List<Ingredient> ingredients) {
@@ -155,7 +155,7 @@ public final class EntryStacks {
      * @return the hash code of the {@code context} context
      */
     public static <T> long hash(EntryStack<T> stack, ComparisonContext context) {
-        return stack.getDefinition().hash(stack, stack.getValue(), context);
+        return stack.hash(context);
     }
     
     /**
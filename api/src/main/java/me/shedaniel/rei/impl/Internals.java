@@ -55,6 +55,7 @@ public final class Internals {
     private static Function<String, CategoryIdentifier<?>> categoryIdentifier = (object) -> throwNotSetup();
     private static Supplier<MenuInfoRegistry> stubMenuInfoRegistry = Internals::throwNotSetup;
     private static Supplier<InternalLogger> logger = Internals::throwNotSetup;
+    private static Supplier<StatisticRecorder> statisticRecorder = Internals::throwNotSetup;
     
     private static <T> T throwNotSetup() {
         throw new AssertionError("REI Internals have not been initialized!");
@@ -117,6 +118,10 @@ public final class Internals {
         return logger.get();
     }
     
+    public static StatisticRecorder getStatisticRecorder() {
+        return statisticRecorder.get();
+    }
+    
     public interface EntryStackProvider {
         EntryStack<Unit> empty();
         
@@ -135,9 +140,22 @@ public final class Internals {
         EntryIngredient.Builder builder();
         
         EntryIngredient.Builder builder(int initialCapacity);
+        
+        /**
+         * Returns an equal ingredient that may be shared with other ingredients of the same content,
+         * the stacks of the ingredient must not be modified afterwards.
+         */
+        EntryIngredient intern(EntryIngredient ingredient);
     }
     
     public interface NbtHasherProvider {
         EntryComparator<Tag> provide(String... ignoredKeys);
     }
+    
+    public interface StatisticRecorder {
+        /**
+         * Records a statistic shown in the performance screen, a statistic of the same name replaces the previous one.
+         */
+        void statistic(String category, String name, Supplier<String> value);
+    }
 }
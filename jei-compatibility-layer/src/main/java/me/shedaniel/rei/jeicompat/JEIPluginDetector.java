@@ -561,6 +561,8 @@ public class JEIPluginDetector {
         
         @Override
         public void registerDisplays(DisplayRegistry registry) {
+            JEIRecipeManager.INSTANCE.invalidateLookups();
+            JEIDisplaySetup.invalidateCache();
             backingPlugin.registerRecipes(new JEIRecipeRegistration(post));
             backingPlugin.registerAdvanced(JEIAdvancedRegistration.INSTANCE);
             if (!registry.getVisibilityPredicates().contains(JEIRecipeManager.INSTANCE.displayPredicate)) {
@@ -609,6 +611,8 @@ public class JEIPluginDetector {
                 
                 entryRegistry.clear();
                 post.clear();
+                JEIRecipeManager.INSTANCE.invalidateLookups();
+                JEIDisplaySetup.invalidateCache();
             }
         }
         
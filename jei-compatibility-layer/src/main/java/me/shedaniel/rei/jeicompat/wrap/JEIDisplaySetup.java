@@ -23,6 +23,7 @@
 
 package me.shedaniel.rei.jeicompat.wrap;
 
+import it.unimi.dsi.fastutil.longs.LongSet;
 import me.shedaniel.math.Point;
 import me.shedaniel.math.Rectangle;
 import me.shedaniel.rei.api.client.gui.widgets.Tooltip;
@@ -48,6 +49,14 @@ import java.util.*;
 import java.util.stream.Collectors;
 
 public class JEIDisplaySetup {
+    private static final int MAX_CACHED = 64;
+    private static final Map<CacheKey, Result> CACHE = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<CacheKey, Result> eldest) {
+            return size() > MAX_CACHED;
+        }
+    };
+    
     public static class ShapelessData {
         public boolean shapeless;
         public Point pos;
@@ -78,6 +87,17 @@ public class JEIDisplaySetup {
             this.slots = slots;
             this.slotsRoled = slots.stream().collect(Collectors.groupingBy(JEIRecipeSlot::getRole));
         }
+        
+        /**
+         * Creates a result with new slots from the geometry and entries of the slots of this result.
+         */
+        public Result instantiate() {
+            Result result = new Result();
+            result.shapelessData.shapeless = shapelessData.shapeless;
+            result.shapelessData.pos = shapelessData.pos;
+            result.setSlots(CollectionUtils.map(slots, JEIRecipeSlot::new));
+            return result;
+        }
     }
     
     public static <T> Result create(IRecipeCategory<T> category, JEIWrappedDisplay<T> display, IFocusGroup focuses) {
@@ -115,6 +135,66 @@ public class JEIDisplaySetup {
         }
     }
     
+    /**
+     * Returns new slots of the display for the focuses, the geometry and entries of the slots are cached per display and focus group,
+     * as the layout is set up again whenever the display is shown, such as when paging through the displays.
+     */
+    public static <T> Result getOrCreate(IRecipeCategory<T> category, JEIWrappedDisplay<T> display, IFocusGroup focuses) {
+        CacheKey key = new CacheKey(display, JEIRecipeLookupCache.hashFocuses(focuses.getAllFocuses()));
+        Result template;
+        synchronized (CACHE) {
+            template = CACHE.get(key);
+        }
+        if (template == null) {
+            template = create(category, display, focuses);
+            for (JEIRecipeSlot slot : template.slots) {
+                if (slot.isVisible()) {
+                    applyRenderers(slot);
+                }
+            }
+            synchronized (CACHE) {
+                CACHE.put(key, template);
+            }
+        }
+        return template.instantiate();
+    }
+    
+    public static void invalidateCache() {
+        synchronized (CACHE) {
+            CACHE.clear();
+        }
+    }
+    
+    /**
+     * Applies the renderers and the size of the slot, the entries of the slots created from a cached result keep their renderers.
+     */
+    private static void applyRenderers(JEIRecipeSlot slot) {
+        for (Map.Entry<EntryType<?>, IIngredientRenderer<?>> rendererEntry : slot.renderers.entrySet()) {
+            EntryType<?> type = rendererEntry.getKey();
+            
+            JEIEntryDefinition.Renderer<?> renderer = new JEIEntryDefinition.Renderer<>(rendererEntry.getValue());
+            for (EntryStack<?> entry : slot.slot.getEntries()) {
+                if (entry.getType() == type) {
+                    ClientEntryStacks.setRenderer(entry, renderer);
+                }
+            }
+        }
+        
+        if (slot.renderers.size() == 1) {
+            IIngredientRenderer<?> renderer = slot.renderers.values().iterator().next();
+            slot.slot.getBounds().setSize(renderer.getWidth() + 2, renderer.getHeight() + 2);
+        }
+        
+        if (slot.capacityMb != null) {
+            for (EntryStack<?> entry : slot.slot.getEntries()) {
+                if (entry.getType() == VanillaEntryTypes.FLUID) {
+                    ClientEntryStacks.setFluidRenderRatio(entry.cast(),
+                            entry.<dev.architectury.fluid.FluidStack>cast().getValue().getAmount() / (float) slot.capacityMb);
+                }
+            }
+        }
+    }
+    
     public static void addTo(List<Widget> widgets, Rectangle bounds, Result result) {
         for (JEIRecipeSlot slot : result.slots) {
             if (slot.isVisible()) {
@@ -135,31 +215,6 @@ public class JEIDisplaySetup {
                 
                 widgets.add(Widgets.withTranslate(slot.slot, 0, 0, 10));
                 
-                for (Map.Entry<EntryType<?>, IIngredientRenderer<?>> rendererEntry : slot.renderers.entrySet()) {
-                    EntryType<?> type = rendererEntry.getKey();
-                    
-                    JEIEntryDefinition.Renderer<?> renderer = new JEIEntryDefinition.Renderer<>(rendererEntry.getValue());
-                    for (EntryStack<?> entry : slot.slot.getEntries()) {
-                        if (entry.getType() == type) {
-                            ClientEntryStacks.setRenderer(entry, renderer);
-                        }
-                    }
-                }
-                
-                if (slot.renderers.size() == 1) {
-                    IIngredientRenderer<?> renderer = slot.renderers.values().iterator().next();
-                    slot.slot.getBounds().setSize(renderer.getWidth() + 2, renderer.getHeight() + 2);
-                }
-                
-                if (slot.capacityMb != null) {
-                    for (EntryStack<?> entry : slot.slot.getEntries()) {
-                        if (entry.getType() == VanillaEntryTypes.FLUID) {
-                            ClientEntryStacks.setFluidRenderRatio(entry.cast(),
-                                    entry.<dev.architectury.fluid.FluidStack>cast().getValue().getAmount() / (float) slot.capacityMb);
-                        }
-                    }
-                }
-                
                 if (slot.overlay != null) {
                     widgets.add(slot.overlay);
                 }
@@ -177,4 +232,6 @@ public class JEIDisplaySetup {
             }
         }
     }
+    
+    private record CacheKey(JEIWrappedDisplay<?> display, LongSet focuses) {}
 }
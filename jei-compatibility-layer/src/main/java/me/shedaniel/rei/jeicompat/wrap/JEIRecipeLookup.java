@@ -61,6 +61,10 @@ public class JEIRecipeLookup<R> implements IRecipeLookup<R> {
     
     @Override
     public Stream<R> get() {
+        return JEIRecipeManager.INSTANCE.lookupCache.get(categoryIdentifier, focui, includesHidden, this::lookup).stream();
+    }
+    
+    private List<R> lookup() {
         ViewSearchBuilder builder = ViewSearchBuilder.builder()
                 .filterCategory(categoryIdentifier);
         for (IFocus<?> focus : focui) {
@@ -76,6 +80,7 @@ public class JEIRecipeLookup<R> implements IRecipeLookup<R> {
         }
         return builder.streamDisplays()
                 .map(DisplaySpec::provideInternalDisplay)
-                .map(display -> (R) display.jeiValue());
+                .map(display -> (R) display.jeiValue())
+                .toList();
     }
 }
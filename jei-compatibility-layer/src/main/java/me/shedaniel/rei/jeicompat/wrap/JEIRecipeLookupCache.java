@@ -0,0 +1,119 @@
+/*
+ * This file is licensed under the MIT License, part of Roughly Enough Items.
+ * Copyright (c) 2018, 2019, 2020, 2021, 2022 shedaniel
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package me.shedaniel.rei.jeicompat.wrap;
+
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import it.unimi.dsi.fastutil.longs.LongSet;
+import it.unimi.dsi.fastutil.longs.LongSets;
+import lombok.experimental.ExtensionMethod;
+import me.shedaniel.rei.api.client.registry.display.DisplayRegistry;
+import me.shedaniel.rei.api.common.category.CategoryIdentifier;
+import me.shedaniel.rei.api.common.util.EntryStacks;
+import me.shedaniel.rei.impl.Internals;
+import me.shedaniel.rei.jeicompat.JEIPluginDetector;
+import mezz.jei.api.recipe.IFocus;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Bounded cache of the results of recipe lookups, some plugins look up recipes every frame or for every tooltip.
+ * <p>
+ * Results are keyed by the category, the hashes of the focuses and whether hidden recipes are included,
+ * and are invalidated when plugins reload, when recipes are hidden or added, or when the number of displays changes.
+ */
+@ExtensionMethod(JEIPluginDetector.class)
+public class JEIRecipeLookupCache {
+    private static final int MAX_SIZE = 256;
+    private final Map<Key, List<?>> results = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, List<?>> eldest) {
+            return size() > MAX_SIZE;
+        }
+    };
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private int displaySize = -1;
+    private int generation;
+    
+    public JEIRecipeLookupCache(String name) {
+        Internals.getStatisticRecorder().statistic("JEI Recipe Lookups", name, () -> {
+            long hits = this.hits.sum(), misses = this.misses.sum();
+            return String.format(Locale.ROOT, "%d hits, %d misses (%.1f%% hit rate)", hits, misses, hits + misses == 0 ? 0 : hits * 100.0 / (hits + misses));
+        });
+    }
+    
+    public <R> List<R> get(CategoryIdentifier<?> category, Collection<? extends IFocus<?>> focuses, boolean includeHidden, Supplier<List<R>> lookup) {
+        Key key = new Key(category, hashFocuses(focuses), includeHidden);
+        int displaySize = DisplayRegistry.getInstance().displaySize();
+        int generation;
+        synchronized (results) {
+            if (this.displaySize != displaySize) {
+                results.clear();
+                this.displaySize = displaySize;
+            }
+            generation = this.generation;
+            List<R> result = (List<R>) results.get(key);
+            if (result != null) {
+                hits.increment();
+                return result;
+            }
+        }
+        misses.increment();
+        // recipes of displays without an origin are null
+        List<R> result = Collections.unmodifiableList(new ArrayList<>(lookup.get()));
+        synchronized (results) {
+            // not cached if the cache was invalidated during the lookup
+            if (this.displaySize == displaySize && this.generation == generation) {
+                results.put(key, result);
+            }
+        }
+        return result;
+    }
+    
+    public void invalidate() {
+        synchronized (results) {
+            results.clear();
+            generation++;
+        }
+    }
+    
+    static LongSet hashFocuses(Collection<? extends IFocus<?>> focuses) {
+        if (focuses == null || focuses.isEmpty()) return LongSets.EMPTY_SET;
+        LongOpenHashSet hashes = new LongOpenHashSet(focuses.size());
+        for (IFocus<?> focus : focuses) {
+            hashes.add(EntryStacks.hashExact(focus.getTypedValue().unwrapStack()) * 31 + focus.getMode().ordinal());
+        }
+        return hashes;
+    }
+    
+    private record Key(CategoryIdentifier<?> category, LongSet focuses, boolean includeHidden) {}
+}
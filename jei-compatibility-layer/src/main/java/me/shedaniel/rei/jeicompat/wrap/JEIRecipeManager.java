@@ -54,6 +54,8 @@ public enum JEIRecipeManager implements IRecipeManager {
     Map<CategoryIdentifier<?>, Set<Object>> hiddenRecipes = new HashMap<>();
     public DisplayPredicate displayPredicate = new DisplayPredicate();
     public CategoryPredicate categoryPredicate = new CategoryPredicate();
+    public final JEIRecipeLookupCache lookupCache = new JEIRecipeLookupCache("IRecipeLookup");
+    public final JEIRecipeLookupCache recipesCache = new JEIRecipeLookupCache("IRecipeManager#getRecipes");
     
     @Override
     @Nullable
@@ -71,7 +73,9 @@ public enum JEIRecipeManager implements IRecipeManager {
     @Override
     public <T> List<T> getRecipes(IRecipeCategory<T> recipeCategory, List<? extends IFocus<?>> focuses, boolean includeHidden) {
         if (focuses != null && !focuses.isEmpty()) throw TODO();
-        return JEIPluginDetector.wrapRecipes(recipeCategory.getRecipeType().categoryId(), !includeHidden);
+        CategoryIdentifier<?> categoryId = recipeCategory.getRecipeType().categoryId();
+        // a new list every call, callers may modify it
+        return new ArrayList<>(recipesCache.get(categoryId, Collections.emptyList(), includeHidden, () -> JEIPluginDetector.wrapRecipes(categoryId, !includeHidden)));
     }
     
     @Override
@@ -111,7 +115,9 @@ public enum JEIRecipeManager implements IRecipeManager {
     @Override
     public <T, V> List<T> getRecipes(IRecipeCategory<T> recipeCategory, @Nullable IFocus<V> focus, boolean includeHidden) {
         if (focus != null) throw TODO();
-        return JEIPluginDetector.wrapRecipes(recipeCategory.getRecipeType().categoryId(), !includeHidden);
+        CategoryIdentifier<?> categoryId = recipeCategory.getRecipeType().categoryId();
+        // a new list every call, callers may modify it
+        return new ArrayList<>(recipesCache.get(categoryId, Collections.emptyList(), includeHidden, () -> JEIPluginDetector.wrapRecipes(categoryId, !includeHidden)));
     }
     
     @Override
@@ -141,6 +147,7 @@ public enum JEIRecipeManager implements IRecipeManager {
     @Override
     public <T> void hideRecipes(RecipeType<T> recipeType, Collection<T> recipes) {
         hiddenRecipes.computeIfAbsent(recipeType.categoryId(), $ -> new HashSet<>()).addAll(recipes);
+        invalidateLookups();
     }
     
     @Override
@@ -150,21 +157,25 @@ public enum JEIRecipeManager implements IRecipeManager {
         if (hiddenRecipes.get(categoryIdentifier).isEmpty()) {
             hiddenRecipes.remove(categoryIdentifier);
         }
+        invalidateLookups();
     }
     
     @Override
     public <T> void addRecipes(RecipeType<T> recipeType, List<T> recipes) {
         JEIRecipeRegistration.addRecipes0(recipes, recipeType.getUid());
+        invalidateLookups();
     }
     
     @Override
     public void hideRecipeCategory(RecipeType<?> recipeType) {
         this.hiddenCategories.add(recipeType.categoryId());
+        invalidateLookups();
     }
     
     @Override
     public void unhideRecipeCategory(RecipeType<?> recipeType) {
         this.hiddenCategories.remove(recipeType.categoryId());
+        invalidateLookups();
     }
     
     @Override
@@ -177,6 +188,7 @@ public enum JEIRecipeManager implements IRecipeManager {
     public <T> void hideRecipe(T recipe, ResourceLocation recipeCategoryUid) {
         Set<Object> recipes = hiddenRecipes.computeIfAbsent(recipeCategoryUid.categoryId(), $ -> new HashSet<>());
         recipes.add(recipe);
+        invalidateLookups();
     }
     
     @Override
@@ -187,21 +199,30 @@ public enum JEIRecipeManager implements IRecipeManager {
         if (recipes.isEmpty()) {
             hiddenRecipes.remove(categoryIdentifier);
         }
+        invalidateLookups();
     }
     
     @Override
     public void hideRecipeCategory(ResourceLocation recipeCategoryUid) {
         this.hiddenCategories.add(recipeCategoryUid.categoryId());
+        invalidateLookups();
     }
     
     @Override
     public void unhideRecipeCategory(ResourceLocation recipeCategoryUid) {
         this.hiddenCategories.remove(recipeCategoryUid.categoryId());
+        invalidateLookups();
     }
     
     @Override
     public <T> void addRecipe(T recipe, ResourceLocation recipeCategoryUid) {
         JEIRecipeRegistration.addRecipes0(Collections.singletonList(recipe), recipeCategoryUid);
+        invalidateLookups();
+    }
+    
+    public void invalidateLookups() {
+        lookupCache.invalidate();
+        recipesCache.invalidate();
     }
     
     public class DisplayPredicate implements DisplayVisibilityPredicate {
@@ -69,6 +69,10 @@ public class JEIRecipeSlot implements IRecipeSlotBuilder, IRecipeSlotView {
     public Widget background;
     @Nullable
     public Widget overlay;
+    @Nullable
+    private Decoration backgroundDecoration;
+    @Nullable
+    private Decoration overlayDecoration;
     public final int index;
     
     public JEIRecipeSlot(int index, RecipeIngredientRole role, @Nullable Point pos) {
@@ -78,6 +82,31 @@ public class JEIRecipeSlot implements IRecipeSlotBuilder, IRecipeSlotView {
         this.visible = pos != null;
     }
     
+    /**
+     * Creates a slot with the same geometry, role and callbacks as the template, with a new slot widget and copies of its entries.
+     */
+    public JEIRecipeSlot(JEIRecipeSlot template) {
+        this.index = template.index;
+        this.role = template.role;
+        this.slot = Widgets.createSlot(template.slot.getBounds().clone()).disableBackground();
+        for (EntryStack<?> entry : template.slot.getEntries()) {
+            this.slot.entry(entry.copy());
+        }
+        this.visible = template.visible;
+        this.name = template.name;
+        this.capacityMb = template.capacityMb;
+        this.tooltipCallback = template.tooltipCallback;
+        this.renderers.putAll(template.renderers);
+        if (template.backgroundDecoration != null) {
+            this.backgroundDecoration = template.backgroundDecoration;
+            this.background = template.backgroundDecoration.create(slot);
+        }
+        if (template.overlayDecoration != null) {
+            this.overlayDecoration = template.overlayDecoration;
+            this.overlay = template.overlayDecoration.create(slot);
+        }
+    }
+    
     public int getIndex() {
         return index;
     }
@@ -126,13 +155,15 @@ public class JEIRecipeSlot implements IRecipeSlotBuilder, IRecipeSlotView {
     
     @Override
     public IRecipeSlotBuilder setBackground(IDrawable background, int xOffset, int yOffset) {
-        this.background = Widgets.withTranslate(Widgets.wrapRenderer(() -> slot.getInnerBounds().clone(), background.unwrapRenderer()), xOffset, yOffset, 0);
+        this.backgroundDecoration = new Decoration(background, xOffset, yOffset);
+        this.background = backgroundDecoration.create(slot);
         return this;
     }
     
     @Override
     public IRecipeSlotBuilder setOverlay(IDrawable overlay, int xOffset, int yOffset) {
-        this.overlay = Widgets.withTranslate(Widgets.wrapRenderer(() -> slot.getInnerBounds().clone(), overlay.unwrapRenderer()), xOffset, yOffset, 0);
+        this.overlayDecoration = new Decoration(overlay, xOffset, yOffset);
+        this.overlay = overlayDecoration.create(slot);
         return this;
     }
     
@@ -207,4 +238,10 @@ public class JEIRecipeSlot implements IRecipeSlotBuilder, IRecipeSlotView {
     
     private static final Method m_93179_ = ObfuscationReflectionHelper.findMethod(GuiComponent.class, "m_93179_",
             PoseStack.class, Integer.TYPE, Integer.TYPE, Integer.TYPE, Integer.TYPE, Integer.TYPE, Integer.TYPE);
+    
+    private record Decoration(IDrawable drawable, int xOffset, int yOffset) {
+        private Widget create(Slot slot) {
+            return Widgets.withTranslate(Widgets.wrapRenderer(() -> slot.getInnerBounds().clone(), drawable.unwrapRenderer()), xOffset, yOffset, 0);
+        }
+    }
 }
@@ -35,6 +35,7 @@ import me.shedaniel.rei.api.client.registry.category.CategoryRegistry;
 import me.shedaniel.rei.api.client.registry.display.DisplayCategory;
 import me.shedaniel.rei.api.common.category.CategoryIdentifier;
 import me.shedaniel.rei.api.common.entry.EntryIngredient;
+import me.shedaniel.rei.impl.Internals;
 import me.shedaniel.rei.jeicompat.JEIPluginDetector;
 import mezz.jei.api.gui.drawable.IDrawable;
 import mezz.jei.api.recipe.IFocusGroup;
@@ -48,20 +49,43 @@ import net.minecraft.util.FormattedCharSequence;
 import net.minecraft.util.LazyLoadedValue;
 import org.jetbrains.annotations.Nullable;
 
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.List;
+import java.util.*;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
 
 @ExtensionMethod(JEIPluginDetector.class)
 public class JEIWrappedCategory<T> implements DisplayCategory<JEIWrappedDisplay<T>> {
+    private static final Set<String> THREAD_SAFE_CATEGORIES = Arrays.stream(System.getProperty("rei.jeiThreadSafeCategories", "").split(","))
+            .map(String::trim)
+            .filter(id -> !id.isEmpty())
+            .collect(Collectors.toUnmodifiableSet());
     private final IRecipeCategory<T> backingCategory;
     public final LazyLoadedValue<IDrawable> background;
     private final CategoryIdentifier<? extends JEIWrappedDisplay<T>> identifier;
+    private final boolean threadSafe;
+    private final LongAdder compileTime = new LongAdder();
+    private final LongAdder compiledDisplays = new LongAdder();
     
     public JEIWrappedCategory(IRecipeCategory<T> backingCategory) {
         this.backingCategory = backingCategory;
         this.background = new LazyLoadedValue<>(backingCategory::getBackground);
         this.identifier = backingCategory.getRecipeType().categoryId().cast();
+        this.threadSafe = THREAD_SAFE_CATEGORIES.contains(identifier.toString());
+        Internals.getStatisticRecorder().statistic("JEI Display Compilation", identifier.toString(),
+                () -> String.format(Locale.ROOT, "%d displays in %.1fms", compiledDisplays.sum(), compileTime.sum() / 1_000_000.0));
+    }
+    
+    /**
+     * JEI does not declare whether categories can set up recipes off the client thread,
+     * categories listed in {@code rei.jeiThreadSafeCategories} have their displays compiled in parallel.
+     */
+    public boolean isThreadSafe() {
+        return threadSafe;
+    }
+    
+    public void recordCompile(long nanos) {
+        compileTime.add(nanos);
+        compiledDisplays.increment();
     }
     
     public Class<? extends T> getRecipeClass() {
@@ -146,7 +170,7 @@ public class JEIWrappedCategory<T> implements DisplayCategory<JEIWrappedDisplay<
         List<Widget> widgets = new ArrayList<>();
         JEIDisplaySetup.Result result;
         try {
-            result = JEIDisplaySetup.create(category, display, focuses);
+            result = JEIDisplaySetup.getOrCreate(category, display, focuses);
         } catch (Throwable throwable) {
             throwable.printStackTrace();
             widgets.add(Widgets.createRecipeBase(bounds).color(0xFFFF0000));
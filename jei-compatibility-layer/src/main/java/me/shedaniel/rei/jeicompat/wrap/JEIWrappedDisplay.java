@@ -28,10 +28,11 @@ import me.shedaniel.rei.api.client.gui.screen.DisplayScreen;
 import me.shedaniel.rei.api.client.view.ViewSearchBuilder;
 import me.shedaniel.rei.api.client.view.Views;
 import me.shedaniel.rei.api.common.category.CategoryIdentifier;
-import me.shedaniel.rei.api.common.display.Display;
 import me.shedaniel.rei.api.common.entry.EntryIngredient;
 import me.shedaniel.rei.api.common.entry.EntryStack;
 import me.shedaniel.rei.api.common.util.CollectionUtils;
+import me.shedaniel.rei.impl.common.InternalLogger;
+import me.shedaniel.rei.impl.display.PreparableDisplay;
 import me.shedaniel.rei.jeicompat.JEIPluginDetector;
 import mezz.jei.api.ingredients.IIngredients;
 import mezz.jei.api.recipe.IFocus;
@@ -41,47 +42,87 @@ import mezz.jei.api.recipe.category.IRecipeCategory;
 import net.minecraft.client.Minecraft;
 import net.minecraft.resources.ResourceLocation;
 import net.minecraft.world.item.crafting.Recipe;
+import org.jetbrains.annotations.Nullable;
 
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 @ExtensionMethod(JEIPluginDetector.class)
-public class JEIWrappedDisplay<T> implements Display {
+public class JEIWrappedDisplay<T> implements PreparableDisplay {
     private final JEIWrappedCategory<T> backingCategory;
     private final T backingRecipe;
+    private final IFocusGroup foci;
     private List<EntryIngredient> compiledInput;
     private List<EntryIngredient> compiledOutputs;
     private JEIIngredients ingredients = null;
+    private volatile boolean compiled;
     
     public JEIWrappedDisplay(JEIWrappedCategory<T> backingCategory, T backingRecipe) {
         this.backingCategory = backingCategory;
         this.backingRecipe = backingRecipe;
-        this.cache();
+        // the foci depend on the screen, they are captured now as the display may be compiled later
+        this.foci = getFoci();
     }
     
-    public void cache() {
+    @Override
+    @Nullable
+    public CompletableFuture<Void> prepareAsync() {
+        if (compiled || !backingCategory.isThreadSafe()) return null;
+        return CompletableFuture.runAsync(this::ensureCompiled);
+    }
+    
+    /**
+     * Compiles the entries of the recipe if they are not compiled yet, the entries are compiled lazily
+     * as most displays are only accessed when the displays are indexed or shown.
+     */
+    public void ensureCompiled() {
+        if (!compiled) {
+            synchronized (this) {
+                if (!compiled) {
+                    try {
+                        cache();
+                    } catch (Throwable throwable) {
+                        // the entries are compiled when accessed, failing here must not break whoever accessed them
+                        InternalLogger.getInstance().error("Failed to compile JEI display for recipe [" + backingRecipe + "]", throwable);
+                        this.compiledInput = Collections.emptyList();
+                        this.compiledOutputs = Collections.emptyList();
+                        this.compiled = true;
+                    }
+                }
+            }
+        }
+    }
+    
+    public synchronized void cache() {
+        long start = System.nanoTime();
         JEIRecipeLayoutBuilder builder = new JEIRecipeLayoutBuilder(null);
         IRecipeCategory<T> category = getBackingCategory().getBackingCategory();
-        category.setRecipe(builder, getBackingRecipe(), getFoci());
+        category.setRecipe(builder, getBackingRecipe(), foci);
         
         if (builder.isDirty()) {
             this.compiledInput = CollectionUtils.filterAndMap(builder.slots, role -> role.role == RecipeIngredientRole.INPUT || role.role == RecipeIngredientRole.CATALYST,
                     slot -> EntryIngredient.of(slot.slot.getEntries()));
             this.compiledOutputs = CollectionUtils.filterAndMap(builder.slots, role -> role.role == RecipeIngredientRole.OUTPUT,
                     slot -> EntryIngredient.of(slot.slot.getEntries()));
-            return;
+        } else {
+            this.ingredients = new JEIIngredients();
+            backingCategory.getBackingCategory().setIngredients(this.backingRecipe, ingredients);
+            List<EntryIngredient> compiledInput = new ArrayList<>();
+            List<EntryIngredient> compiledOutputs = new ArrayList<>();
+            ingredients.compileIngredients(compiledInput, compiledOutputs);
+            this.compiledInput = compiledInput;
+            this.compiledOutputs = compiledOutputs;
         }
         
-        this.ingredients = new JEIIngredients();
-        backingCategory.getBackingCategory().setIngredients(this.backingRecipe, ingredients);
-        this.compiledInput = new ArrayList<>();
-        this.compiledOutputs = new ArrayList<>();
-        ingredients.compileIngredients(compiledInput, compiledOutputs);
+        this.compiled = true;
+        backingCategory.recordCompile(System.nanoTime() - start);
     }
     
     public IIngredients getLegacyIngredients() {
+        ensureCompiled();
         return ingredients;
     }
     
@@ -136,11 +177,13 @@ public class JEIWrappedDisplay<T> implements Display {
     
     @Override
     public List<EntryIngredient> getInputEntries() {
+        ensureCompiled();
         return compiledInput != null ? compiledInput : Collections.emptyList();
     }
     
     @Override
     public List<EntryIngredient> getOutputEntries() {
+        ensureCompiled();
         return compiledOutputs != null ? compiledOutputs : Collections.emptyList();
     }
     
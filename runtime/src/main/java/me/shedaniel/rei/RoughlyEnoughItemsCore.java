@@ -126,6 +126,7 @@ public class RoughlyEnoughItemsCore {
                 },
                 new MenuInfoRegistryImpl()), "serverPluginManager");
         Internals.attachInstanceSupplier(LOGGER, "logger");
+        Internals.attachInstanceSupplier((Internals.StatisticRecorder) PERFORMANCE_LOGGER::statistic, "statisticRecorder");
     }
     
     public static void _reloadPlugins(@Nullable ReloadStage stage) {
@@ -47,6 +47,7 @@ import me.shedaniel.rei.impl.client.gui.hints.HintProvider;
 import me.shedaniel.rei.impl.client.gui.widget.CachedEntryListRender;
 import me.shedaniel.rei.impl.client.gui.widget.search.OverlaySearchField;
 import me.shedaniel.rei.impl.client.search.argument.Argument;
+import me.shedaniel.rei.impl.client.util.ClientThreadStage;
 import net.fabricmc.api.EnvType;
 import net.fabricmc.api.Environment;
 import net.minecraft.client.Minecraft;
@@ -271,5 +272,6 @@ public class REIRuntimeImpl implements REIRuntime {
                 ScreenOverlayImpl.getInstance().tick();
             }
         });
+        ClientTickEvent.CLIENT_POST.register(minecraft -> ClientThreadStage.tick());
     }
 }
@@ -399,6 +399,16 @@ public class ConfigObjectImpl implements ConfigObject, ConfigData {
         return advanced.search.asyncSearchPartitionSize;
     }
     
+    @ApiStatus.Internal
+    public boolean isNgramSearchIndexEnabled() {
+        return advanced.search.ngramSearchIndex;
+    }
+    
+    @ApiStatus.Internal
+    public boolean isPersistentSearchCacheEnabled() {
+        return advanced.search.persistentSearchCache;
+    }
+    
     @Override
     @ApiStatus.Experimental
     public boolean doDebugSearchTimeRequired() {
@@ -645,6 +655,8 @@ public class ConfigObjectImpl implements ConfigObject, ConfigData {
             @Comment("Declares whether REI should search async.") private boolean asyncSearch = true;
             @Comment("Declares how many entries should be grouped one async search.") @ConfigEntry.BoundedDiscrete(min = 25, max = 400)
             private int asyncSearchPartitionSize = 100;
+            @Comment("Declares whether REI should index names and tooltips for faster searching.") private boolean ngramSearchIndex = true;
+            @Comment("Declares whether REI should save search data to the game directory to speed up the first search.") private boolean persistentSearchCache = true;
             @ConfigEntry.Gui.EnumHandler(option = ConfigEntry.Gui.EnumHandler.EnumDisplayOption.BUTTON)
             private SearchMode tooltipSearch = SearchMode.ALWAYS;
             @ConfigEntry.Gui.EnumHandler(option = ConfigEntry.Gui.EnumHandler.EnumDisplayOption.BUTTON)
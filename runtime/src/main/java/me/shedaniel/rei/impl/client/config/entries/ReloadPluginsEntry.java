@@ -32,6 +32,7 @@ import me.shedaniel.rei.RoughlyEnoughItemsCoreClient;
 import me.shedaniel.rei.api.common.plugins.PluginManager;
 import me.shedaniel.rei.impl.client.gui.screen.ConfigReloadingScreen;
 import me.shedaniel.rei.impl.client.search.argument.Argument;
+import me.shedaniel.rei.impl.client.search.argument.SearchAttributeTable;
 import net.minecraft.client.Minecraft;
 import net.minecraft.client.gui.chat.NarratorChatListener;
 import net.minecraft.client.gui.components.AbstractWidget;
@@ -65,6 +66,7 @@ public class ReloadPluginsEntry extends AbstractConfigListEntry<Unit> {
     };
     private AbstractWidget reloadSearchButton = new Button(0, 0, 0, 20, NarratorChatListener.NO_TITLE, button -> {
         Argument.SEARCH_CACHE.clear();
+        SearchAttributeTable.getInstance().clear();
     });
     private List<AbstractWidget> children = ImmutableList.of(reloadPluginsButton, reloadSearchButton);
     
@@ -99,7 +101,7 @@ public class ReloadPluginsEntry extends AbstractConfigListEntry<Unit> {
         this.reloadPluginsButton.setWidth(width / 2 - 2);
         this.reloadPluginsButton.x = x + entryWidth / 2 - width / 2;
         this.reloadPluginsButton.render(matrices, mouseX, mouseY, delta);
-        this.reloadSearchButton.active = this.isEditable() && !Argument.SEARCH_CACHE.isEmpty();
+        this.reloadSearchButton.active = this.isEditable() && (!Argument.SEARCH_CACHE.isEmpty() || SearchAttributeTable.getInstance().hasComputedData());
         this.reloadSearchButton.y = y;
         this.reloadSearchButton.setWidth(width / 2 - 2);
         this.reloadSearchButton.x = x + entryWidth / 2 + 2;
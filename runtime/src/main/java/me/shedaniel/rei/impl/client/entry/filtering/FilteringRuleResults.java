@@ -0,0 +1,130 @@
+/*
+ * This file is licensed under the MIT License, part of Roughly Enough Items.
+ * Copyright (c) 2018, 2019, 2020, 2021, 2022 shedaniel
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package me.shedaniel.rei.impl.client.entry.filtering;
+
+import com.google.common.base.Stopwatch;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
+import me.shedaniel.rei.RoughlyEnoughItemsCore;
+import me.shedaniel.rei.api.common.entry.EntryStack;
+import me.shedaniel.rei.api.common.util.CollectionUtils;
+import me.shedaniel.rei.impl.common.util.HashedEntryStackWrapper;
+import net.fabricmc.api.EnvType;
+import net.fabricmc.api.Environment;
+import net.minecraft.nbt.CompoundTag;
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+
+/**
+ * Remembers the result of every {@link FilteringRule} as bitsets over a fixed list of entries,
+ * so that changing one rule only evaluates that rule again.
+ * <p>
+ * Every rule is evaluated on its own against a context where all entries are unset, this relies on rules
+ * deciding on each stack independently of the other rules, which holds for the built-in rules.
+ * The results are then combined in the order the rules are applied, later rules override earlier ones.
+ */
+@ApiStatus.Internal
+@Environment(EnvType.CLIENT)
+public class FilteringRuleResults {
+    private final List<EntryStack<?>> entries;
+    private final FilteringContextImpl context;
+    private final Long2IntOpenHashMap indices;
+    // by identity, filtering rules are equal by class
+    private Map<FilteringRule<?>, RuleResult> results = new IdentityHashMap<>();
+    
+    public FilteringRuleResults(List<EntryStack<?>> entries) {
+        this.entries = new ArrayList<>(entries);
+        List<HashedEntryStackWrapper> wrappers = CollectionUtils.mapParallel(this.entries, HashedEntryStackWrapper::new);
+        this.indices = new Long2IntOpenHashMap(wrappers.size());
+        this.indices.defaultReturnValue(-1);
+        for (int i = 0; i < wrappers.size(); i++) {
+            this.indices.put(wrappers.get(i).hashExact(), i);
+        }
+        Map<FilteringContextType, Set<HashedEntryStackWrapper>> stacks = Maps.newHashMap();
+        stacks.put(FilteringContextType.DEFAULT, Sets.newHashSet(wrappers));
+        this.context = new FilteringContextImpl(stacks);
+    }
+    
+    public List<EntryStack<?>> getEntries() {
+        return entries;
+    }
+    
+    /**
+     * Applies the rules, from the last rule to the first, only rules that are new or changed are evaluated.
+     *
+     * @param rules the filtering rules
+     * @return the indices of the hidden entries
+     */
+    public BitSet refilter(List<FilteringRule<?>> rules) {
+        Map<FilteringRule<?>, RuleResult> previousResults = this.results;
+        Map<FilteringRule<?>, RuleResult> results = new IdentityHashMap<>();
+        BitSet hidden = new BitSet(entries.size());
+        Stopwatch stopwatch = Stopwatch.createUnstarted();
+        for (int i = rules.size() - 1; i >= 0; i--) {
+            FilteringRule<?> rule = rules.get(i);
+            Object prepared = rule.prepareCache(true);
+            CompoundTag tag = FilteringRule.save(rule, new CompoundTag());
+            RuleResult result = previousResults.get(rule);
+            if (result == null || !result.matches(tag, prepared)) {
+                stopwatch.reset().start();
+                result = evaluate(rule, tag, prepared);
+                RoughlyEnoughItemsCore.LOGGER.debug("Refiltered rule [%s] in %s.", FilteringRule.REGISTRY.inverse().get(rule).toString(), stopwatch.stop().toString());
+            }
+            results.put(rule, result);
+            hidden.or(result.hidden());
+            hidden.andNot(result.shown());
+        }
+        this.results = results;
+        return hidden;
+    }
+    
+    private RuleResult evaluate(FilteringRule<?> rule, CompoundTag tag, @Nullable Object prepared) {
+        FilteringCacheImpl cache = new FilteringCacheImpl();
+        cache.setCache(rule, prepared);
+        FilteringResult result = rule.processFilteredStacks(context, cache, true);
+        BitSet hidden = toBitSet(result.getHiddenStacks());
+        BitSet shown = toBitSet(result.getShownStacks());
+        // a stack both hidden and shown by the same rule is shown
+        hidden.andNot(shown);
+        return new RuleResult(tag, prepared, hidden, shown);
+    }
+    
+    private BitSet toBitSet(Collection<HashedEntryStackWrapper> stacks) {
+        BitSet bitSet = new BitSet(entries.size());
+        for (HashedEntryStackWrapper stack : stacks) {
+            int index = indices.get(stack.hashExact());
+            if (index >= 0) bitSet.set(index);
+        }
+        return bitSet;
+    }
+    
+    private record RuleResult(CompoundTag tag, @Nullable Object prepared, BitSet hidden, BitSet shown) {
+        private boolean matches(CompoundTag tag, @Nullable Object prepared) {
+            return this.tag.equals(tag) && Objects.equals(this.prepared, prepared);
+        }
+    }
+}
@@ -0,0 +1,276 @@
+/*
+ * This file is licensed under the MIT License, part of Roughly Enough Items.
+ * Copyright (c) 2018, 2019, 2020, 2021, 2022 shedaniel
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package me.shedaniel.rei.impl.client.gui.craftable;
+
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.ints.IntList;
+import it.unimi.dsi.fastutil.longs.*;
+import me.shedaniel.rei.api.client.registry.display.DisplayRegistry;
+import me.shedaniel.rei.api.common.category.CategoryIdentifier;
+import me.shedaniel.rei.api.common.display.Display;
+import me.shedaniel.rei.api.common.entry.EntryIngredient;
+import me.shedaniel.rei.api.common.entry.EntryStack;
+import me.shedaniel.rei.api.common.entry.comparison.ComparisonContext;
+import me.shedaniel.rei.api.common.entry.type.EntryDefinition;
+import me.shedaniel.rei.api.common.entry.type.VanillaEntryTypes;
+import me.shedaniel.rei.api.common.transfer.info.MenuInfo;
+import me.shedaniel.rei.api.common.transfer.info.MenuInfoRegistry;
+import me.shedaniel.rei.api.common.transfer.info.MenuSerializationContext;
+import me.shedaniel.rei.api.common.transfer.info.stack.SlotAccessor;
+import me.shedaniel.rei.api.common.util.EntryStacks;
+import net.fabricmc.api.EnvType;
+import net.fabricmc.api.Environment;
+import net.minecraft.client.Minecraft;
+import net.minecraft.client.player.LocalPlayer;
+import net.minecraft.world.inventory.AbstractContainerMenu;
+import net.minecraft.world.item.ItemStack;
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+
+/**
+ * Tracks which displays are craftable from the inventory, displays are indexed by the fuzzy hashes of their required items,
+ * and only displays requiring items whose counts changed since the last evaluation are evaluated again.
+ */
+@ApiStatus.Internal
+@Environment(EnvType.CLIENT)
+public class CraftableEntriesTracker {
+    private final Long2LongOpenHashMap scratch = new Long2LongOpenHashMap();
+    private final Map<CategoryIdentifier<?>, Context> contexts = new HashMap<>();
+    private List<Display> displays = Collections.emptyList();
+    private Long2ObjectMap<IntList> displaysByHash = Long2ObjectMaps.emptyMap();
+    private BitSet craftable = new BitSet();
+    private int displayCount = -1;
+    @Nullable
+    private AbstractContainerMenu lastMenu;
+    private Long2LongMap lastInvStacks = Long2LongMaps.EMPTY_MAP;
+    private long[] lastSlotHashes = new long[0];
+    private int[] lastSlotCounts = new int[0];
+    
+    public synchronized void reset() {
+        this.displays = Collections.emptyList();
+        this.displaysByHash = Long2ObjectMaps.emptyMap();
+        this.craftable = new BitSet();
+        this.displayCount = -1;
+        this.lastMenu = null;
+        this.lastInvStacks = Long2LongMaps.EMPTY_MAP;
+        this.lastSlotHashes = new long[0];
+        this.lastSlotCounts = new int[0];
+        this.contexts.clear();
+    }
+    
+    public synchronized Collection<EntryStack<?>> findCraftableEntries() {
+        DisplayRegistry registry = DisplayRegistry.getInstance();
+        AbstractContainerMenu menu = Minecraft.getInstance().player.containerMenu;
+        Long2LongMap invStacks = CraftableFilter.INSTANCE.getInvStacks();
+        boolean full = registry.displaySize() != displayCount || menu != lastMenu;
+        if (registry.displaySize() != displayCount) {
+            index(registry);
+        }
+        if (menu != lastMenu) {
+            contexts.clear();
+            lastMenu = menu;
+        }
+        
+        LongSet changed = new LongOpenHashSet();
+        if (!full) {
+            collectChanges(lastInvStacks, invStacks, changed);
+            collectChanges(invStacks, lastInvStacks, changed);
+        }
+        if (!collectSlotChanges(menu, changed)) {
+            full = true;
+        }
+        lastInvStacks = invStacks;
+        
+        if (full) {
+            craftable.clear();
+            for (int i = 0; i < displays.size(); i++) {
+                if (evaluate(displays.get(i), menu, invStacks)) craftable.set(i);
+            }
+        } else if (!changed.isEmpty()) {
+            BitSet affected = new BitSet(displays.size());
+            LongIterator iterator = changed.iterator();
+            while (iterator.hasNext()) {
+                IntList indices = displaysByHash.get(iterator.nextLong());
+                if (indices != null) {
+                    for (int i = 0; i < indices.size(); i++) {
+                        affected.set(indices.getInt(i));
+                    }
+                }
+            }
+            for (int i = affected.nextSetBit(0); i >= 0; i = affected.nextSetBit(i + 1)) {
+                craftable.set(i, evaluate(displays.get(i), menu, invStacks));
+            }
+        }
+        
+        Set<EntryStack<?>> craftables = new HashSet<>();
+        for (int i = craftable.nextSetBit(0); i >= 0; i = craftable.nextSetBit(i + 1)) {
+            for (EntryIngredient ingredient : displays.get(i).getOutputEntries()) {
+                craftables.addAll(ingredient);
+            }
+        }
+        return craftables;
+    }
+    
+    private void index(DisplayRegistry registry) {
+        List<Display> displays = new ArrayList<>(registry.displaySize());
+        Long2ObjectOpenHashMap<IntList> displaysByHash = new Long2ObjectOpenHashMap<>();
+        for (List<Display> categoryDisplays : registry.getAll().values()) {
+            for (Display display : categoryDisplays) {
+                int index = displays.size();
+                displays.add(display);
+                for (EntryIngredient ingredient : display.getRequiredEntries()) {
+                    for (EntryStack<?> stack : ingredient) {
+                        if (stack.getType() != VanillaEntryTypes.ITEM) continue;
+                        IntList indices = displaysByHash.get(EntryStacks.hashFuzzy(stack));
+                        if (indices == null) {
+                            displaysByHash.put(EntryStacks.hashFuzzy(stack), indices = new IntArrayList(2));
+                        }
+                        if (indices.isEmpty() || indices.getInt(indices.size() - 1) != index) {
+                            indices.add(index);
+                        }
+                    }
+                }
+            }
+        }
+        this.displays = displays;
+        this.displaysByHash = displaysByHash;
+        this.craftable = new BitSet(displays.size());
+        this.displayCount = registry.displaySize();
+    }
+    
+    /**
+     * Adds the hashes in {@code from} whose counts differ in {@code to}.
+     */
+    private static void collectChanges(Long2LongMap from, Long2LongMap to, LongSet changed) {
+        for (Long2LongMap.Entry entry : from.long2LongEntrySet()) {
+            if (to.get(entry.getLongKey()) != entry.getLongValue()) {
+                changed.add(entry.getLongKey());
+            }
+        }
+    }
+    
+    /**
+     * Compares the slots of the menu with the last evaluation, items in the input slots of displays count towards their materials.
+     *
+     * @return whether the slots could be compared, {@code false} if the layout of the menu changed
+     */
+    private boolean collectSlotChanges(@Nullable AbstractContainerMenu menu, LongSet changed) {
+        EntryDefinition<ItemStack> definition;
+        try {
+            definition = VanillaEntryTypes.ITEM.getDefinition();
+        } catch (NullPointerException e) {
+            return true;
+        }
+        int size = menu == null ? 0 : menu.slots.size();
+        long[] hashes = new long[size];
+        int[] counts = new int[size];
+        for (int i = 0; i < size; i++) {
+            ItemStack stack = menu.slots.get(i).getItem();
+            if (!stack.isEmpty()) {
+                hashes[i] = definition.hash(null, stack, ComparisonContext.FUZZY);
+                counts[i] = Math.max(0, stack.getCount());
+            }
+        }
+        boolean comparable = size == lastSlotHashes.length;
+        if (comparable) {
+            for (int i = 0; i < size; i++) {
+                if (hashes[i] != lastSlotHashes[i] || counts[i] != lastSlotCounts[i]) {
+                    if (lastSlotCounts[i] > 0) changed.add(lastSlotHashes[i]);
+                    if (counts[i] > 0) changed.add(hashes[i]);
+                }
+            }
+        }
+        lastSlotHashes = hashes;
+        lastSlotCounts = counts;
+        return comparable;
+    }
+    
+    private boolean evaluate(Display display, @Nullable AbstractContainerMenu menu, Long2LongMap invStacks) {
+        Context context = menu == null ? null : contexts.computeIfAbsent(display.getCategoryIdentifier(), category -> new Context(menu, category));
+        MenuInfo<AbstractContainerMenu, Display> info = menu != null ?
+                MenuInfoRegistry.getInstance().getClient(display, context, menu)
+                : null;
+        
+        // the scratch map holds the difference to the inventory counts
+        Long2LongOpenHashMap scratch = this.scratch;
+        scratch.clear();
+        Iterable<SlotAccessor> inputSlots = info != null ? info.getInputSlots(context.withDisplay(display)) : Collections.emptySet();
+        for (SlotAccessor inputSlot : inputSlots) {
+            ItemStack stack = inputSlot.getItemStack();
+            
+            EntryDefinition<ItemStack> definition;
+            try {
+                definition = VanillaEntryTypes.ITEM.getDefinition();
+            } catch (NullPointerException e) {
+                break;
+            }
+            
+            if (!stack.isEmpty()) {
+                scratch.addTo(definition.hash(null, stack, ComparisonContext.FUZZY), Math.max(0, stack.getCount()));
+            }
+        }
+        int slotsCraftable = 0;
+        boolean containsNonEmpty = false;
+        List<EntryIngredient> requiredInput = display.getRequiredEntries();
+        for (EntryIngredient slot : requiredInput) {
+            if (slot.isEmpty()) {
+                slotsCraftable++;
+                continue;
+            }
+            for (EntryStack<?> slotPossible : slot) {
+                if (slotPossible.getType() != VanillaEntryTypes.ITEM) continue;
+                ItemStack stack = slotPossible.castValue();
+                long hashFuzzy = EntryStacks.hashFuzzy(slotPossible);
+                long availableAmount = invStacks.get(hashFuzzy) + scratch.get(hashFuzzy);
+                if (availableAmount >= stack.getCount()) {
+                    scratch.addTo(hashFuzzy, -stack.getCount());
+                    containsNonEmpty = true;
+                    slotsCraftable++;
+                    break;
+                }
+            }
+        }
+        return slotsCraftable == requiredInput.size() && containsNonEmpty;
+    }
+    
+    private record Context(AbstractContainerMenu menu,
+                           CategoryIdentifier<?> category) implements MenuSerializationContext<AbstractContainerMenu, LocalPlayer, Display> {
+        @Override
+        public AbstractContainerMenu getMenu() {
+            return menu;
+        }
+        
+        @Override
+        public LocalPlayer getPlayerEntity() {
+            return Minecraft.getInstance().player;
+        }
+        
+        @Override
+        public CategoryIdentifier<Display> getCategoryIdentifier() {
+            return (CategoryIdentifier<Display>) category;
+        }
+    }
+}
@@ -27,6 +27,8 @@ import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 import com.mojang.blaze3d.vertex.PoseStack;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
 import me.shedaniel.clothconfig2.ClothConfigInitializer;
 import me.shedaniel.clothconfig2.api.ScissorsHandler;
 import me.shedaniel.clothconfig2.api.scroll.ScrollingContainer;
@@ -44,6 +46,7 @@ import me.shedaniel.rei.impl.client.gui.modules.entries.EntryStackSubsetsMenuEnt
 import me.shedaniel.rei.impl.client.gui.modules.entries.SubMenuEntry;
 import me.shedaniel.rei.impl.client.gui.modules.entries.SubSubsetsMenuEntry;
 import me.shedaniel.rei.impl.client.gui.widget.LateRenderable;
+import me.shedaniel.rei.impl.client.subsets.SubsetsRegistryImpl;
 import net.minecraft.client.Minecraft;
 import net.minecraft.client.resources.language.I18n;
 import net.minecraft.core.Registry;
@@ -137,21 +140,34 @@ public class Menu extends WidgetWithBounds implements LateRenderable {
                 }
             }
         }
-        Set<String> paths = SubsetsRegistry.getInstance().getPaths();
-        for (String path : paths) {
-            Map<String, Object> lastMap = entries;
-            String[] pathSegments = path.split("/");
-            for (String pathSegment : pathSegments) {
-                lastMap = getOrCreateSubEntryInMap(lastMap, pathSegment);
-            }
-            for (EntryStack<?> entry : SubsetsRegistry.getInstance().getPathEntries(path)) {
-                EntryStack<?> firstStack = CollectionUtils.findFirstOrNullEqualsExact(stacks, entry);
-                if (firstStack != null) {
-                    putEntryInMap(lastMap, firstStack);
+        Long2ObjectMap<EntryStack<?>> stacksByHash = new Long2ObjectOpenHashMap<>(stacks.size());
+        for (EntryStack<?> stack : stacks) {
+            stacksByHash.putIfAbsent(EntryStacks.hashExact(stack), stack);
+        }
+        SubsetsRegistryImpl registry = (SubsetsRegistryImpl) SubsetsRegistry.getInstance();
+        putPathsInMap(entries, registry, registry.getPathTree(), stacks, stacksByHash);
+        return new Menu(menuStart, buildEntries(entries), true);
+    }
+    
+    private static void putPathsInMap(Map<String, Object> parent, SubsetsRegistryImpl registry, SubsetsRegistryImpl.PathNode node, List<? extends EntryStack<?>> stacks, Long2ObjectMap<EntryStack<?>> stacksByHash) {
+        for (Map.Entry<String, SubsetsRegistryImpl.PathNode> child : node.getChildren().entrySet()) {
+            Map<String, Object> lastMap = getOrCreateSubEntryInMap(parent, child.getKey());
+            String path = child.getValue().getPath();
+            Set<EntryStack<?>> pathEntries = path == null ? null : registry.getPathEntries(path);
+            if (pathEntries != null) {
+                for (EntryStack<?> entry : pathEntries) {
+                    EntryStack<?> firstStack = stacksByHash.get(EntryStacks.hashExact(entry));
+                    if (firstStack != null && !EntryStacks.equalsExact(firstStack, entry)) {
+                        // hash collision, look through all the entries
+                        firstStack = CollectionUtils.findFirstOrNullEqualsExact(stacks, entry);
+                    }
+                    if (firstStack != null) {
+                        putEntryInMap(lastMap, firstStack);
+                    }
                 }
             }
+            putPathsInMap(lastMap, registry, child.getValue(), stacks, stacksByHash);
         }
-        return new Menu(menuStart, buildEntries(entries), true);
     }
     
     private static Map<String, Object> getOrCreateSubEntryInMap(Map<String, Object> parent, String pathSegment) {
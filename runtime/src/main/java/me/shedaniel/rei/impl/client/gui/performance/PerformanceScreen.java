@@ -30,6 +30,7 @@ import me.shedaniel.rei.RoughlyEnoughItemsCore;
 import me.shedaniel.rei.api.common.plugins.REIPlugin;
 import me.shedaniel.rei.api.common.plugins.REIPluginProvider;
 import me.shedaniel.rei.impl.client.gui.performance.entry.EntryListEntry;
+import me.shedaniel.rei.impl.client.gui.performance.entry.StatisticListEntry;
 import me.shedaniel.rei.impl.client.gui.performance.entry.SubCategoryListEntry;
 import net.fabricmc.api.EnvType;
 import net.fabricmc.api.Environment;
@@ -164,6 +165,11 @@ public class PerformanceScreen extends Screen {
             list.addItem(new SubCategoryListEntry(new TextComponent(stage), (List<PerformanceScreen.PerformanceEntry>) (List<? extends PerformanceScreen.PerformanceEntry>) entries, Math.max(inner.totalNano(), separateTime), false));
         });
         list.children().add(0, new EntryListEntry(new TextComponent("Total Load Time"), totalTime[0]));
+        RoughlyEnoughItemsCore.PERFORMANCE_LOGGER.getStatistics().forEach((category, statistics) -> {
+            List<StatisticListEntry> entries = new ArrayList<>();
+            statistics.forEach((name, value) -> entries.add(new StatisticListEntry(new TextComponent(name), value)));
+            list.addItem(new SubCategoryListEntry(new TextComponent(category), (List<PerformanceScreen.PerformanceEntry>) (List<? extends PerformanceScreen.PerformanceEntry>) entries, -1, false));
+        });
         addWidget(list);
     }
     
@@ -132,6 +132,11 @@ public class EntryListWidget extends WidgetWithBounds implements OverlayListWidg
     private List<Widget> renders = Collections.emptyList();
     private List<Widget> widgets = Collections.emptyList();
     private AsyncSearchManager searchManager = AsyncSearchManager.createDefault();
+    // only accessed on the client thread, results of superseded searches are dropped
+    private long searchGeneration;
+    private boolean searchCompleted;
+    @Nullable
+    private PoolLayout poolLayout;
     
     public static int entrySize() {
         return Mth.ceil(SIZE * ConfigObject.getInstance().getEntrySize());
@@ -280,20 +285,23 @@ public class EntryListWidget extends WidgetWithBounds implements OverlayListWidg
         if (ConfigObject.getInstance().isEntryListWidgetScrolled()) {
             ScissorsHandler.INSTANCE.scissor(bounds);
             
-            int skip = Math.max(0, Mth.floor(scrolling.scrollAmount() / (float) entrySize()));
-            int nextIndex = skip * innerBounds.width / entrySize();
+            int entrySize = entrySize();
+            int skip = Math.max(0, Mth.floor(scrolling.scrollAmount() / (float) entrySize));
+            int width = innerBounds.width / entrySize;
             this.blockedCount = 0;
             BatchedEntryRendererManager helper = new BatchedEntryRendererManager();
             
-            int i = nextIndex;
-            for (int cont = nextIndex; cont < entries.size(); cont++) {
-                EntryListEntry entry = entries.get(cont);
+            int i = skip * width;
+            for (int slot = 0; slot < entries.size(); slot++) {
+                EntryListEntry entry = entries.get(slot);
                 Rectangle entryBounds = entry.getBounds();
                 
+                // the pooled slots are rebound to the rows visible at the current scroll offset
+                entry.backupY = (skip + slot / width) * entrySize + innerBounds.y;
                 entryBounds.y = entry.backupY - scrolling.scrollAmountInt();
-                if (entryBounds.y > this.bounds.getMaxY()) break;
-                if (allStacks.size() <= i) break;
-                if (notSteppingOnExclusionZones(entryBounds.x, entryBounds.y, entryBounds.width, entryBounds.height, innerBounds)) {
+                if (entryBounds.y > this.bounds.getMaxY() || allStacks.size() <= i) {
+                    entry.clearStacks();
+                } else if (notSteppingOnExclusionZones(entryBounds.x, entryBounds.y, entryBounds.width, entryBounds.height, innerBounds)) {
                     EntryStack<?> stack = allStacks.get(i++);
                     entry.clearStacks();
                     if (!stack.isEmpty()) {
@@ -301,6 +309,7 @@ public class EntryListWidget extends WidgetWithBounds implements OverlayListWidg
                         helper.add(entry);
                     }
                 } else {
+                    entry.clearStacks();
                     blockedCount++;
                 }
             }
@@ -473,27 +482,29 @@ public class EntryListWidget extends WidgetWithBounds implements OverlayListWidg
             this.entries = entries;
             this.widgets = Lists.newArrayList(renders);
             this.widgets.addAll(entries);
+            this.poolLayout = null;
         } else {
             page = 0;
             int width = innerBounds.width / entrySize;
-            int pageHeight = innerBounds.height / entrySize;
-            int slotsToPrepare = Math.max(allStacks.size() * 3, width * pageHeight * 3);
-            int currentX = 0;
-            int currentY = 0;
-            List<EntryListEntry> entries = Lists.newArrayList();
-            for (int i = 0; i < slotsToPrepare; i++) {
-                int xPos = currentX * entrySize + innerBounds.x;
-                int yPos = currentY * entrySize + innerBounds.y;
-                entries.add((EntryListEntry) new EntryListEntry(xPos, yPos, entrySize, focusModeZoomed).noBackground());
-                currentX++;
-                if (currentX >= width) {
-                    currentX = 0;
-                    currentY++;
+            // only the visible rows and an overscan row are kept, the slots are rebound to the stacks when rendering
+            int rows = Mth.ceil(bounds.height / (float) entrySize) + 2;
+            PoolLayout layout = new PoolLayout(innerBounds.clone(), entrySize, rows, focusModeZoomed);
+            if (layout.equals(poolLayout)) {
+                for (EntryListEntry entry : entries) {
+                    entry.clearStacks();
+                }
+            } else {
+                List<EntryListEntry> entries = Lists.newArrayListWithCapacity(width * rows);
+                for (int i = 0; i < width * rows; i++) {
+                    int xPos = (i % width) * entrySize + innerBounds.x;
+                    int yPos = (i / width) * entrySize + innerBounds.y;
+                    entries.add((EntryListEntry) new EntryListEntry(xPos, yPos, entrySize, focusModeZoomed).noBackground());
                 }
+                this.entries = entries;
+                this.widgets = Lists.newArrayList(renders);
+                this.widgets.addAll(entries);
+                this.poolLayout = layout;
             }
-            this.entries = entries;
-            this.widgets = Lists.newArrayList(renders);
-            this.widgets.addAll(entries);
         }
         FavoritesListWidget favoritesListWidget = ScreenOverlayImpl.getFavoritesListWidget();
         if (favoritesListWidget != null) {
@@ -512,22 +523,43 @@ public class EntryListWidget extends WidgetWithBounds implements OverlayListWidg
         if (ignoreLastSearch) searchManager.markDirty();
         searchManager.updateFilter(searchTerm);
         if (searchManager.isDirty()) {
+            long generation = ++searchGeneration;
+            searchCompleted = false;
             searchManager.getAsync(list -> {
-                list = new ArrayList<>(list);
+                // partial results are only shown when they are already in their final order
+                if (ConfigObject.getInstance().getItemListOrdering() == EntryPanelOrdering.REGISTRY && ConfigObject.getInstance().isItemListAscending()) {
+                    Minecraft.getInstance().execute(() -> {
+                        if (generation == searchGeneration && !searchCompleted) {
+                            allStacks = list;
+                            updateEntriesPosition();
+                        }
+                    });
+                }
+            }, list -> {
+                // the results are transformed copies, they are sorted by the registered stacks they were matched from
+                List<EntryStack<?>> matched = searchManager.getMatched(list);
+                List<EntryStack<?>> sorted = new ArrayList<>(list);
                 EntryPanelOrdering ordering = ConfigObject.getInstance().getItemListOrdering();
-                if (ordering == EntryPanelOrdering.NAME)
-                    list.sort(ENTRY_NAME_COMPARER);
-                if (ordering == EntryPanelOrdering.GROUPS)
-                    list.sort(ENTRY_GROUP_COMPARER);
-                if (!ConfigObject.getInstance().isItemListAscending()) {
-                    Collections.reverse(list);
+                if (matched == null || !EntrySortKeys.getInstance().sort(sorted, matched, ordering)) {
+                    // some stacks are not registered, fall back to comparing the stacks
+                    if (ordering == EntryPanelOrdering.NAME)
+                        sorted.sort(ENTRY_NAME_COMPARER);
+                    if (ordering == EntryPanelOrdering.GROUPS)
+                        sorted.sort(ENTRY_GROUP_COMPARER);
                 }
-                allStacks = list;
-                
-                if (ConfigObject.getInstance().doDebugSearchTimeRequired()) {
-                    RoughlyEnoughItemsCore.LOGGER.info("Search Used: %s", stopwatch.stop().toString());
+                if (!ConfigObject.getInstance().isItemListAscending()) {
+                    Collections.reverse(sorted);
                 }
-                updateEntriesPosition();
+                Minecraft.getInstance().execute(() -> {
+                    if (generation != searchGeneration) return;
+                    searchCompleted = true;
+                    allStacks = sorted;
+                    
+                    if (ConfigObject.getInstance().doDebugSearchTimeRequired()) {
+                        RoughlyEnoughItemsCore.LOGGER.info("Search Used: %s", stopwatch.stop().toString());
+                    }
+                    updateEntriesPosition();
+                });
             });
         }
         debugTime = ConfigObject.getInstance().doDebugRenderTimeRequired();
@@ -591,10 +623,7 @@ public class EntryListWidget extends WidgetWithBounds implements OverlayListWidg
     @Override
     public Stream<EntryStack<?>> getEntries() {
         if (ConfigObject.getInstance().isEntryListWidgetScrolled()) {
-            int skip = Math.max(0, Mth.floor(scrolling.scrollAmount() / (float) entrySize()));
-            int nextIndex = skip * innerBounds.width / entrySize();
             return (Stream<EntryStack<?>>) (Stream<? extends EntryStack<?>>) entries.stream()
-                    .skip(nextIndex)
                     .filter(entry -> entry.getBounds().y <= this.bounds.getMaxY())
                     .map(EntryWidget::getCurrentEntry)
                     .filter(Predicates.not(EntryStack::isEmpty));
@@ -603,6 +632,8 @@ public class EntryListWidget extends WidgetWithBounds implements OverlayListWidg
         }
     }
     
+    private record PoolLayout(Rectangle innerBounds, int entrySize, int rows, boolean zoomed) {}
+    
     private class EntryListEntry extends EntryListEntryWidget {
         private long lastCheckTime = -1;
         private Display display;
@@ -0,0 +1,137 @@
+/*
+ * This file is licensed under the MIT License, part of Roughly Enough Items.
+ * Copyright (c) 2018, 2019, 2020, 2021, 2022 shedaniel
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package me.shedaniel.rei.impl.client.gui.widget;
+
+import com.google.common.base.Stopwatch;
+import it.unimi.dsi.fastutil.ints.IntArrays;
+import it.unimi.dsi.fastutil.longs.LongArrays;
+import me.shedaniel.rei.RoughlyEnoughItemsCore;
+import me.shedaniel.rei.api.client.gui.config.EntryPanelOrdering;
+import me.shedaniel.rei.api.common.entry.EntryStack;
+import me.shedaniel.rei.api.common.entry.type.VanillaEntryTypes;
+import me.shedaniel.rei.impl.client.search.argument.SearchAttributeTable;
+import me.shedaniel.rei.impl.client.search.argument.type.RegexArgumentType;
+import net.fabricmc.api.EnvType;
+import net.fabricmc.api.Environment;
+import net.minecraft.client.Minecraft;
+import net.minecraft.world.item.CreativeModeTab;
+import net.minecraft.world.item.ItemStack;
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.List;
+
+/**
+ * Sort keys of the registered entries, indexed by the position of the entry in the {@link SearchAttributeTable}.
+ * <p>
+ * Names are ranked once per language, so sorting the entry list compares primitive keys instead of building
+ * the names of the stacks again. Stacks with equal keys keep their relative order, like a stable sort.
+ */
+@ApiStatus.Internal
+@Environment(EnvType.CLIENT)
+public class EntrySortKeys {
+    @Nullable
+    private static volatile EntrySortKeys instance;
+    private final SearchAttributeTable table;
+    private final String language;
+    private final int[] nameRanks;
+    private final int[] groups;
+    
+    private EntrySortKeys(SearchAttributeTable table, String language) {
+        Stopwatch stopwatch = Stopwatch.createStarted();
+        this.table = table;
+        this.language = language;
+        int size = table.size();
+        String[] names = new String[size];
+        int[] order = new int[size];
+        this.groups = new int[size];
+        for (int i = 0; i < size; i++) {
+            names[i] = table.get(RegexArgumentType.INSTANCE, i);
+            order[i] = i;
+            groups[i] = group(table.getStack(i));
+        }
+        IntArrays.mergeSort(order, (a, b) -> names[a].compareTo(names[b]));
+        this.nameRanks = new int[size];
+        for (int i = 1; i < size; i++) {
+            // equal names share the same rank
+            boolean equal = names[order[i]].equals(names[order[i - 1]]);
+            nameRanks[order[i]] = equal ? nameRanks[order[i - 1]] : i;
+        }
+        RoughlyEnoughItemsCore.LOGGER.debug("Computed sort keys of %d entries in %s", size, stopwatch.stop());
+    }
+    
+    private static int group(EntryStack<?> stack) {
+        if (stack.getType() == VanillaEntryTypes.ITEM) {
+            CreativeModeTab group = ((ItemStack) stack.getValue()).getItem().getItemCategory();
+            if (group != null)
+                return group.getId();
+        }
+        return Integer.MAX_VALUE;
+    }
+    
+    public static EntrySortKeys getInstance() {
+        SearchAttributeTable table = SearchAttributeTable.getInstance();
+        String language = Minecraft.getInstance().options.languageCode;
+        EntrySortKeys keys = instance;
+        if (keys == null || keys.table != table || !keys.language.equals(language)) {
+            synchronized (EntrySortKeys.class) {
+                keys = instance;
+                if (keys == null || keys.table != table || !keys.language.equals(language)) {
+                    instance = keys = new EntrySortKeys(table, language);
+                }
+            }
+        }
+        return keys;
+    }
+    
+    /**
+     * Sorts the stacks in place by the ordering, the stacks are looked up by the registered stacks they were transformed from.
+     *
+     * @param stacks   the stacks to sort
+     * @param matched  the registered stacks, in the same order as the stacks
+     * @param ordering the ordering
+     * @return whether the stacks are sorted, {@code false} if some stacks are not registered, in which case the list is untouched
+     */
+    public boolean sort(List<EntryStack<?>> stacks, List<EntryStack<?>> matched, EntryPanelOrdering ordering) {
+        if (ordering == EntryPanelOrdering.REGISTRY) return true;
+        if (stacks.size() != matched.size()) return false;
+        int[] keys = ordering == EntryPanelOrdering.NAME ? nameRanks : groups;
+        // the key is in the upper half, the position in the list in the lower half, to keep the sort stable
+        long[] sortKeys = new long[stacks.size()];
+        for (int i = 0; i < sortKeys.length; i++) {
+            int index = table.indexOf(matched.get(i));
+            if (index == -1) return false;
+            sortKeys[i] = ((long) keys[index] << 32) | i;
+        }
+        LongArrays.radixSort(sortKeys);
+        EntryStack<?>[] sorted = new EntryStack[sortKeys.length];
+        for (int i = 0; i < sortKeys.length; i++) {
+            sorted[i] = stacks.get((int) sortKeys[i]);
+        }
+        for (int i = 0; i < sorted.length; i++) {
+            stacks.set(i, sorted[i]);
+        }
+        return true;
+    }
+}
@@ -0,0 +1,155 @@
+/*
+ * This file is licensed under the MIT License, part of Roughly Enough Items.
+ * Copyright (c) 2018, 2019, 2020, 2021, 2022 shedaniel
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package me.shedaniel.rei.impl.client.registry.display;
+
+import dev.architectury.event.CompoundEventResult;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import it.unimi.dsi.fastutil.longs.LongSet;
+import it.unimi.dsi.fastutil.objects.Reference2IntMap;
+import it.unimi.dsi.fastutil.objects.Reference2IntOpenHashMap;
+import it.unimi.dsi.fastutil.objects.ReferenceOpenHashSet;
+import it.unimi.dsi.fastutil.objects.ReferenceSet;
+import me.shedaniel.rei.api.common.category.CategoryIdentifier;
+import me.shedaniel.rei.api.common.display.Display;
+import me.shedaniel.rei.api.common.entry.EntryIngredient;
+import me.shedaniel.rei.api.common.entry.EntryStack;
+import me.shedaniel.rei.api.common.entry.type.EntryType;
+import me.shedaniel.rei.api.common.entry.type.EntryTypeBridge;
+import me.shedaniel.rei.api.common.entry.type.EntryTypeRegistry;
+import me.shedaniel.rei.api.common.util.EntryStacks;
+import net.minecraft.resources.ResourceLocation;
+import org.jetbrains.annotations.ApiStatus;
+
+import java.util.*;
+import java.util.stream.Stream;
+
+/**
+ * Inverted index from the fuzzy hash of an entry to the displays consuming or producing it.
+ * <p>
+ * Lookups only return candidates, callers are still expected to verify them with {@link EntryStacks#equalsFuzzy(EntryStack, EntryStack)}.
+ * Entries of types bridging into the queried type cannot be hashed ahead of time, displays containing them are always returned as candidates.
+ */
+@ApiStatus.Internal
+public class DisplayEntriesIndex {
+    private final Reference2IntMap<Display> ordinals = new Reference2IntOpenHashMap<>();
+    private final Long2ObjectMap<ReferenceSet<Display>> inputs = new Long2ObjectOpenHashMap<>();
+    private final Long2ObjectMap<ReferenceSet<Display>> outputs = new Long2ObjectOpenHashMap<>();
+    private final Map<ResourceLocation, ReferenceSet<Display>> inputTypes = new HashMap<>();
+    private final Map<ResourceLocation, ReferenceSet<Display>> outputTypes = new HashMap<>();
+    
+    public synchronized void index(Display display) {
+        if (ordinals.containsKey(display)) return;
+        ordinals.put(display, ordinals.size());
+        index(display, display.getInputEntries(), inputs, inputTypes);
+        index(display, display.getOutputEntries(), outputs, outputTypes);
+    }
+    
+    private static void index(Display display, List<EntryIngredient> ingredients, Long2ObjectMap<ReferenceSet<Display>> hashes,
+            Map<ResourceLocation, ReferenceSet<Display>> types) {
+        for (EntryIngredient ingredient : ingredients) {
+            for (EntryStack<?> stack : ingredient) {
+                hashes.computeIfAbsent(EntryStacks.hashFuzzy(stack), hash -> new ReferenceOpenHashSet<>()).add(display);
+                types.computeIfAbsent(stack.getType().getId(), id -> new ReferenceOpenHashSet<>()).add(display);
+            }
+        }
+    }
+    
+    public synchronized void clear() {
+        ordinals.clear();
+        inputs.clear();
+        outputs.clear();
+        inputTypes.clear();
+        outputTypes.clear();
+    }
+    
+    public synchronized boolean isEmpty() {
+        return ordinals.isEmpty();
+    }
+    
+    /**
+     * Returns the candidate displays that may produce any of the {@code recipesFor} stacks
+     * or consume any of the {@code usagesFor} stacks, grouped by category and in registration order.
+     *
+     * @param recipesFor the stacks to find recipes for
+     * @param usagesFor  the stacks to find usages for
+     * @return the candidate displays
+     */
+    public synchronized Map<CategoryIdentifier<?>, List<Display>> findCandidates(List<EntryStack<?>> recipesFor, List<EntryStack<?>> usagesFor) {
+        ReferenceSet<Display> candidates = new ReferenceOpenHashSet<>();
+        collect(recipesFor, outputs, outputTypes, candidates);
+        collect(usagesFor, inputs, inputTypes, candidates);
+        Map<CategoryIdentifier<?>, List<Display>> result = new HashMap<>();
+        for (Display display : candidates) {
+            result.computeIfAbsent(display.getCategoryIdentifier(), id -> new ArrayList<>()).add(display);
+        }
+        Comparator<Display> comparator = Comparator.comparingInt(ordinals::getInt);
+        for (List<Display> displays : result.values()) {
+            displays.sort(comparator);
+        }
+        return result;
+    }
+    
+    private static void collect(List<EntryStack<?>> stacks, Long2ObjectMap<ReferenceSet<Display>> hashes,
+            Map<ResourceLocation, ReferenceSet<Display>> types, ReferenceSet<Display> candidates) {
+        if (stacks.isEmpty()) return;
+        LongSet queryHashes = new LongOpenHashSet();
+        Set<ResourceLocation> bridgedTypes = new HashSet<>();
+        for (EntryStack<?> stack : stacks) {
+            queryHashes.add(EntryStacks.hashFuzzy(stack));
+            collectBridged(stack, queryHashes, bridgedTypes);
+        }
+        for (long hash : queryHashes) {
+            ReferenceSet<Display> displays = hashes.get(hash);
+            if (displays != null) {
+                candidates.addAll(displays);
+            }
+        }
+        for (ResourceLocation typeId : bridgedTypes) {
+            ReferenceSet<Display> displays = types.get(typeId);
+            if (displays != null) {
+                candidates.addAll(displays);
+            }
+        }
+    }
+    
+    private static <A> void collectBridged(EntryStack<A> stack, LongSet queryHashes, Set<ResourceLocation> bridgedTypes) {
+        EntryTypeRegistry registry = EntryTypeRegistry.getInstance();
+        EntryType<A> type = stack.getType();
+        for (ResourceLocation otherId : registry.keySet()) {
+            if (otherId.equals(type.getId())) continue;
+            EntryType<Object> otherType = EntryType.deferred(otherId);
+            for (EntryTypeBridge<A, Object> bridge : registry.getBridgesFor(type, otherType)) {
+                CompoundEventResult<Stream<EntryStack<Object>>> holder = bridge.bridge(stack);
+                if (holder.isTrue()) {
+                    holder.object().forEach(bridged -> queryHashes.add(EntryStacks.hashFuzzy(bridged)));
+                }
+            }
+            if (registry.getBridgesFor(otherType, type).iterator().hasNext()) {
+                bridgedTypes.add(otherId);
+            }
+        }
+    }
+}
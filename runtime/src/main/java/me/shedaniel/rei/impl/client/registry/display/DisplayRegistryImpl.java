@@ -40,7 +40,10 @@ import me.shedaniel.rei.api.client.registry.display.visibility.DisplayVisibility
 import me.shedaniel.rei.api.common.category.CategoryIdentifier;
 import me.shedaniel.rei.api.common.display.Display;
 import me.shedaniel.rei.api.common.plugins.PluginManager;
+import me.shedaniel.rei.impl.common.plugins.BufferedReloadable;
+import me.shedaniel.rei.impl.common.plugins.PluginReloadBuffer;
 import me.shedaniel.rei.impl.common.registry.RecipeManagerContextImpl;
+import me.shedaniel.rei.impl.display.PreparableDisplay;
 import net.minecraft.world.item.crafting.Recipe;
 import org.apache.commons.lang3.mutable.MutableInt;
 import org.apache.commons.lang3.mutable.MutableLong;
@@ -48,13 +51,15 @@ import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.BiPredicate;
 import java.util.function.Function;
 import java.util.function.Predicate;
 import java.util.function.UnaryOperator;
 
-public class DisplayRegistryImpl extends RecipeManagerContextImpl<REIClientPlugin> implements DisplayRegistry {
+public class DisplayRegistryImpl extends RecipeManagerContextImpl<REIClientPlugin> implements DisplayRegistry, BufferedReloadable {
     private final WeakHashMap<Display, Object> displaysBase = new WeakHashMap<>();
     private final Map<CategoryIdentifier<?>, DisplaysList> displays = new ConcurrentHashMap<>();
     private final Map<CategoryIdentifier<?>, List<Display>> unmodifiableDisplays;
@@ -63,6 +68,8 @@ public class DisplayRegistryImpl extends RecipeManagerContextImpl<REIClientPlugi
     private final List<DisplayVisibilityPredicate> visibilityPredicates = new ArrayList<>();
     private final List<DisplayFiller<?>> fillers = new ArrayList<>();
     private final MutableInt displayCount = new MutableInt(0);
+    private final DisplayEntriesIndex index = new DisplayEntriesIndex();
+    private boolean indexed = false;
     
     public DisplayRegistryImpl() {
         super(RecipeManagerContextImpl.supplier());
@@ -159,14 +166,19 @@ public class DisplayRegistryImpl extends RecipeManagerContextImpl<REIClientPlugi
             }
         }
         
-        displays.computeIfAbsent(display.getCategoryIdentifier(), location -> new DisplaysList())
-                .add(display);
-        displayCount.increment();
-        if (origin != null) {
-            synchronized (displaysBase) {
-                displaysBase.put(display, origin);
+        PluginReloadBuffer.run(() -> {
+            displays.computeIfAbsent(display.getCategoryIdentifier(), location -> new DisplaysList())
+                    .add(display);
+            displayCount.increment();
+            if (indexed) {
+                index.index(display);
             }
-        }
+            if (origin != null) {
+                synchronized (displaysBase) {
+                    displaysBase.put(display, origin);
+                }
+            }
+        });
     }
     
     @Override
@@ -176,13 +188,13 @@ public class DisplayRegistryImpl extends RecipeManagerContextImpl<REIClientPlugi
     
     @Override
     public <A extends Display> void registerGlobalDisplayGenerator(DynamicDisplayGenerator<A> generator) {
-        globalDisplayGenerators.add(generator);
+        PluginReloadBuffer.run(() -> globalDisplayGenerators.add(generator));
     }
     
     @Override
     public <A extends Display> void registerDisplayGenerator(CategoryIdentifier<A> categoryId, DynamicDisplayGenerator<A> generator) {
-        displayGenerators.computeIfAbsent(categoryId, location -> new ArrayList<>())
-                .add(generator);
+        PluginReloadBuffer.run(() -> displayGenerators.computeIfAbsent(categoryId, location -> new ArrayList<>())
+                .add(generator));
     }
     
     @Override
@@ -197,8 +209,10 @@ public class DisplayRegistryImpl extends RecipeManagerContextImpl<REIClientPlugi
     
     @Override
     public void registerVisibilityPredicate(DisplayVisibilityPredicate predicate) {
-        visibilityPredicates.add(predicate);
-        visibilityPredicates.sort(Comparator.reverseOrder());
+        PluginReloadBuffer.run(() -> {
+            visibilityPredicates.add(predicate);
+            visibilityPredicates.sort(Comparator.reverseOrder());
+        });
     }
     
     @Override
@@ -231,12 +245,14 @@ public class DisplayRegistryImpl extends RecipeManagerContextImpl<REIClientPlugi
     
     @Override
     public <T, D extends Display> void registerFiller(Class<T> typeClass, BiPredicate<? extends T, DisplayAdditionReasons> predicate, Function<? extends T, D> filler) {
-        fillers.add(new DisplayFiller<>((o, s) -> typeClass.isInstance(o) && ((BiPredicate<Object, DisplayAdditionReasons>) predicate).test(o, s), (Function<Object, D>) filler));
+        DisplayFiller<D> displayFiller = new DisplayFiller<>((o, s) -> typeClass.isInstance(o) && ((BiPredicate<Object, DisplayAdditionReasons>) predicate).test(o, s), (Function<Object, D>) filler);
+        PluginReloadBuffer.run(() -> fillers.add(displayFiller));
     }
     
     @Override
     public <D extends Display> void registerFiller(Predicate<?> predicate, Function<?, D> filler) {
-        fillers.add(new DisplayFiller<>((o, s) -> ((Predicate<Object>) predicate).test(o), (Function<Object, D>) filler));
+        DisplayFiller<D> displayFiller = new DisplayFiller<>((o, s) -> ((Predicate<Object>) predicate).test(o), (Function<Object, D>) filler);
+        PluginReloadBuffer.run(() -> fillers.add(displayFiller));
     }
     
     @Override
@@ -247,6 +263,8 @@ public class DisplayRegistryImpl extends RecipeManagerContextImpl<REIClientPlugi
         this.visibilityPredicates.clear();
         this.fillers.clear();
         this.displayCount.setValue(0);
+        this.index.clear();
+        this.indexed = false;
     }
     
     @Override
@@ -258,6 +276,38 @@ public class DisplayRegistryImpl extends RecipeManagerContextImpl<REIClientPlugi
                 addWithReason(recipe, DisplayAdditionReason.RECIPE_MANAGER);
             }
         }
+        
+        // displays computing their entries lazily are prepared in parallel, instead of one by one while indexing
+        List<CompletableFuture<Void>> preparing = new ArrayList<>();
+        for (List<Display> displays : this.displays.values()) {
+            for (Display display : displays) {
+                if (display instanceof PreparableDisplay preparable) {
+                    CompletableFuture<Void> future = preparable.prepareAsync();
+                    if (future != null) preparing.add(future);
+                }
+            }
+        }
+        try {
+            CompletableFuture.allOf(preparing.toArray(new CompletableFuture[0])).join();
+        } catch (CompletionException e) {
+            RoughlyEnoughItemsCore.LOGGER.throwException(e);
+        }
+        
+        for (List<Display> displays : this.displays.values()) {
+            for (Display display : displays) {
+                index.index(display);
+            }
+        }
+        this.indexed = true;
+    }
+    
+    /**
+     * Returns the inverted index of the registered displays, only complete after the registry has finished reloading.
+     *
+     * @return the index of the registered displays
+     */
+    public DisplayEntriesIndex getIndex() {
+        return index;
     }
     
     @Override
@@ -26,6 +26,8 @@ package me.shedaniel.rei.impl.client.registry.screen;
 import com.google.common.collect.HashMultimap;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Multimap;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.ints.IntList;
 import me.shedaniel.math.Rectangle;
 import me.shedaniel.rei.RoughlyEnoughItemsCore;
 import me.shedaniel.rei.api.client.gui.config.DisplayPanelLocation;
@@ -38,20 +40,34 @@ import net.minecraft.client.Minecraft;
 import net.minecraft.client.gui.screens.Screen;
 import net.minecraft.world.InteractionResult;
 import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.Nullable;
 
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Function;
 
+/**
+ * Exclusion zones of the screens, each screen class is resolved once to the providers applying to it.
+ * <p>
+ * The zones of the current screen are evaluated once per frame, when the overlay checks whether its area should be recalculated,
+ * and are kept in a snapshot with a coarse grid, so point lookups only test the zones overlapping the cell of the point.
+ */
 @ApiStatus.Internal
 @Environment(EnvType.CLIENT)
 public class ExclusionZonesImpl implements ExclusionZones {
     private static final Comparator<? super Rectangle> RECTANGLE_COMPARER = Comparator.comparingLong(Rectangle::hashCode);
+    // a snapshot is evaluated again after this long even if the overlay is not rendered
+    private static final long SNAPSHOT_NANOS = 50_000_000;
     
     private long lastArea = -1;
     private final Multimap<Class<?>, Function<Screen, Collection<Rectangle>>> list = HashMultimap.create();
+    private final Map<Class<?>, List<Function<Screen, Collection<Rectangle>>>> resolved = new ConcurrentHashMap<>();
+    @Nullable
+    private volatile Snapshot snapshot;
     
     @Override
     public <R extends Screen> boolean isHandingScreen(Class<R> screen) {
@@ -66,23 +82,8 @@ public class ExclusionZonesImpl implements ExclusionZones {
     @Override
     public InteractionResult isInZone(double mouseX, double mouseY) {
         Screen screen = Minecraft.getInstance().screen;
-        Class<? extends Screen> screenClass = screen.getClass();
-        
-        synchronized (list) {
-            for (Map.Entry<Class<?>, Collection<Function<Screen, Collection<Rectangle>>>> collectionEntry : list.asMap().entrySet()) {
-                if (collectionEntry.getKey().isAssignableFrom(screenClass)) {
-                    for (Function<Screen, Collection<Rectangle>> listSupplier : collectionEntry.getValue()) {
-                        for (Rectangle zone : listSupplier.apply(screen)) {
-                            if (zone.contains(mouseX, mouseY)) {
-                                return InteractionResult.FAIL;
-                            }
-                        }
-                    }
-                }
-            }
-        }
-        
-        return InteractionResult.PASS;
+        if (screen == null) return InteractionResult.PASS;
+        return getSnapshot(screen, false).contains(mouseX, mouseY) ? InteractionResult.FAIL : InteractionResult.PASS;
     }
     
     @Override
@@ -95,7 +96,10 @@ public class ExclusionZonesImpl implements ExclusionZones {
     }
     
     private long currentHashCode(DisplayPanelLocation location) {
-        return areasHashCode(getExclusionZones(Minecraft.getInstance().screen, false));
+        Screen screen = Minecraft.getInstance().screen;
+        if (screen == null) return areasHashCode(Collections.emptyList());
+        // called once per frame by the overlay, the zones are evaluated again here
+        return areasHashCode(getSnapshot(screen, true).zones());
     }
     
     @Override
@@ -115,15 +119,15 @@ public class ExclusionZonesImpl implements ExclusionZones {
             return Lists.newArrayList();
         }
         
-        List<Rectangle> rectangles = Lists.newArrayList();
-        synchronized (list) {
-            for (Map.Entry<Class<?>, Collection<Function<Screen, Collection<Rectangle>>>> collectionEntry : list.asMap().entrySet()) {
-                if (collectionEntry.getKey().isAssignableFrom(screenClass)) {
-                    for (Function<Screen, Collection<Rectangle>> listSupplier : collectionEntry.getValue()) {
-                        rectangles.addAll(listSupplier.apply(screen));
-                    }
-                }
+        List<Rectangle> rectangles;
+        if (screenClass == screen.getClass()) {
+            List<Rectangle> zones = getSnapshot(screen, false).zones();
+            rectangles = Lists.newArrayListWithCapacity(zones.size());
+            for (Rectangle zone : zones) {
+                rectangles.add(zone.clone());
             }
+        } else {
+            rectangles = evaluate(screenClass, screen);
         }
         if (sort) {
             rectangles.sort(RECTANGLE_COMPARER);
@@ -131,6 +135,44 @@ public class ExclusionZonesImpl implements ExclusionZones {
         return rectangles;
     }
     
+    private List<Function<Screen, Collection<Rectangle>>> resolve(Class<?> screenClass) {
+        List<Function<Screen, Collection<Rectangle>>> providers = resolved.get(screenClass);
+        if (providers == null) {
+            providers = Lists.newArrayList();
+            synchronized (list) {
+                for (Map.Entry<Class<?>, Collection<Function<Screen, Collection<Rectangle>>>> collectionEntry : list.asMap().entrySet()) {
+                    if (collectionEntry.getKey().isAssignableFrom(screenClass)) {
+                        providers.addAll(collectionEntry.getValue());
+                    }
+                }
+                // under the lock, so a concurrent registration cannot clear the cache before this stale list is stored
+                resolved.put(screenClass, providers);
+            }
+        }
+        return providers;
+    }
+    
+    private List<Rectangle> evaluate(Class<?> screenClass, Screen screen) {
+        List<Rectangle> rectangles = Lists.newArrayList();
+        for (Function<Screen, Collection<Rectangle>> provider : resolve(screenClass)) {
+            rectangles.addAll(provider.apply(screen));
+        }
+        return rectangles;
+    }
+    
+    private Snapshot getSnapshot(Screen screen, boolean refresh) {
+        Snapshot snapshot = this.snapshot;
+        long now = System.nanoTime();
+        if (refresh || snapshot == null || !snapshot.isValid(screen, now)) {
+            List<Rectangle> zones = Lists.newArrayList();
+            for (Rectangle zone : evaluate(screen.getClass(), screen)) {
+                if (zone != null) zones.add(zone.clone());
+            }
+            this.snapshot = snapshot = new Snapshot(screen, screen.width, screen.height, now, zones, ZoneGrid.of(zones));
+        }
+        return snapshot;
+    }
+    
     @Override
     public int getZonesCount() {
         return list.size();
@@ -140,6 +182,8 @@ public class ExclusionZonesImpl implements ExclusionZones {
     public <T> void register(Class<? extends T> screenClass, ExclusionZonesProvider<? extends T> provider) {
         synchronized (list) {
             list.put(screenClass, screen -> ((ExclusionZonesProvider<T>) provider).provide((T) screen));
+            resolved.clear();
+            snapshot = null;
         }
         
         if (!PluginManager.areAnyReloading()) {
@@ -154,4 +198,82 @@ public class ExclusionZonesImpl implements ExclusionZones {
         return hashCode;
     }
     
+    private record Snapshot(Screen screen, int width, int height, long time, List<Rectangle> zones, @Nullable ZoneGrid grid) {
+        private boolean isValid(Screen screen, long now) {
+            return this.screen == screen && width == screen.width && height == screen.height && now - time < SNAPSHOT_NANOS;
+        }
+        
+        private boolean contains(double x, double y) {
+            int[] candidates = ZoneGrid.candidates(grid, x, y);
+            if (candidates == null) {
+                for (Rectangle zone : zones) {
+                    if (zone.contains(x, y)) return true;
+                }
+            } else {
+                for (int candidate : candidates) {
+                    if (zones.get(candidate).contains(x, y)) return true;
+                }
+            }
+            return false;
+        }
+    }
+    
+    /**
+     * Grid over the bounding box of the zones, each cell holds the indices of the zones overlapping it, edges included.
+     */
+    private record ZoneGrid(int minX, int minY, int cellSize, int columns, int rows, int[][] cells) {
+        private static final int MIN_CELL_SIZE = 32;
+        private static final int MAX_CELLS = 64;
+        private static final int MIN_ZONES = 8;
+        private static final int[] EMPTY = new int[0];
+        
+        @Nullable
+        private static ZoneGrid of(List<Rectangle> zones) {
+            // a few zones are faster to test directly
+            if (zones.size() < MIN_ZONES) return null;
+            int minX = Integer.MAX_VALUE, minY = Integer.MAX_VALUE, maxX = Integer.MIN_VALUE, maxY = Integer.MIN_VALUE;
+            for (Rectangle zone : zones) {
+                minX = Math.min(minX, zone.x);
+                minY = Math.min(minY, zone.y);
+                maxX = Math.max(maxX, zone.x + zone.width);
+                maxY = Math.max(maxY, zone.y + zone.height);
+            }
+            long extent = Math.max((long) maxX - minX, (long) maxY - minY) + 1;
+            int cellSize = (int) Math.min(Integer.MAX_VALUE, Math.max(MIN_CELL_SIZE, (extent + MAX_CELLS - 1) / MAX_CELLS));
+            int columns = (int) (((long) maxX - minX) / cellSize) + 1;
+            int rows = (int) (((long) maxY - minY) / cellSize) + 1;
+            IntList[] lists = new IntList[columns * rows];
+            for (int i = 0; i < zones.size(); i++) {
+                Rectangle zone = zones.get(i);
+                int fromColumn = (int) (((long) zone.x - minX) / cellSize), toColumn = (int) (((long) zone.x + zone.width - minX) / cellSize);
+                int fromRow = (int) (((long) zone.y - minY) / cellSize), toRow = (int) (((long) zone.y + zone.height - minY) / cellSize);
+                for (int row = fromRow; row <= toRow; row++) {
+                    for (int column = fromColumn; column <= toColumn; column++) {
+                        IntList list = lists[row * columns + column];
+                        if (list == null) {
+                            lists[row * columns + column] = list = new IntArrayList(2);
+                        }
+                        list.add(i);
+                    }
+                }
+            }
+            int[][] cells = new int[lists.length][];
+            for (int i = 0; i < lists.length; i++) {
+                cells[i] = lists[i] == null ? EMPTY : lists[i].toIntArray();
+            }
+            return new ZoneGrid(minX, minY, cellSize, columns, rows, cells);
+        }
+        
+        /**
+         * Returns the indices of the zones that may contain the point, or {@code null} if every zone has to be tested.
+         */
+        @Nullable
+        private static int[] candidates(@Nullable ZoneGrid grid, double x, double y) {
+            if (grid == null) return null;
+            double column = Math.floor((x - grid.minX) / grid.cellSize);
+            double row = Math.floor((y - grid.minY) / grid.cellSize);
+            if (column < 0 || row < 0 || column >= grid.columns || row >= grid.rows) return EMPTY;
+            return grid.cells[(int) row * grid.columns + (int) column];
+        }
+    }
 }
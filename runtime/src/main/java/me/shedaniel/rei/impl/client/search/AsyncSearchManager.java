@@ -24,8 +24,10 @@
 package me.shedaniel.rei.impl.client.search;
 
 import com.google.common.collect.Lists;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
 import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
 import it.unimi.dsi.fastutil.longs.LongSet;
+import me.shedaniel.rei.RoughlyEnoughItemsCore;
 import me.shedaniel.rei.api.client.config.ConfigManager;
 import me.shedaniel.rei.api.client.config.ConfigObject;
 import me.shedaniel.rei.api.client.registry.entry.EntryRegistry;
@@ -35,16 +37,31 @@ import me.shedaniel.rei.api.client.view.Views;
 import me.shedaniel.rei.api.common.entry.EntryStack;
 import me.shedaniel.rei.api.common.util.CollectionUtils;
 import me.shedaniel.rei.api.common.util.EntryStacks;
+import me.shedaniel.rei.impl.client.search.argument.Argument;
+import me.shedaniel.rei.impl.client.search.argument.SearchAttributeTable;
+import org.jetbrains.annotations.Nullable;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.*;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Consumer;
 import java.util.function.Predicate;
 import java.util.function.Supplier;
 import java.util.function.UnaryOperator;
 
 public class AsyncSearchManager {
+    private static final int RECENT_RESULTS_SIZE = 8;
+    private static final int MIN_CHUNK_SIZE = 64;
+    private static final long PARTIAL_RESULTS_INTERVAL = 100;
+    private static final ForkJoinPool EXECUTOR = new ForkJoinPool(Math.max(1, Runtime.getRuntime().availableProcessors() - 1), pool -> {
+        ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+        thread.setName("REI-Search-" + thread.getPoolIndex());
+        thread.setDaemon(true);
+        thread.setContextClassLoader(AsyncSearchManager.class.getClassLoader());
+        return thread;
+    }, ($, exception) -> {
+        RoughlyEnoughItemsCore.LOGGER.throwException(exception);
+    }, false);
     private final Supplier<List<EntryStack<?>>> stacksProvider;
     private final Supplier<Predicate<EntryStack<?>>> additionalPredicateSupplier;
     private final UnaryOperator<EntryStack<?>> transformer;
@@ -52,8 +69,24 @@ public class AsyncSearchManager {
     private SearchFilter filter;
     private boolean dirty = false;
     private boolean filterDirty = false;
+    private final AtomicLong generation = new AtomicLong();
     private CompletableFuture<List<EntryStack<?>>> future;
+    private long futureGeneration;
     private List<EntryStack<?>> last;
+    private boolean invalidated = false;
+    private List<EntryStack<?>> lastStacks;
+    private SearchFilter lastFilter;
+    private List<EntryStack<?>> lastMatched;
+    @Nullable
+    private volatile SearchResult lastResult;
+    @Nullable
+    private StackPositions positions;
+    private final Map<String, SearchResult> recentResults = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, SearchResult> eldest) {
+            return size() > RECENT_RESULTS_SIZE;
+        }
+    };
     
     public AsyncSearchManager(Supplier<List<EntryStack<?>>> stacksProvider, Supplier<Predicate<EntryStack<?>>> additionalPredicateSupplier, UnaryOperator<EntryStack<?>> transformer) {
         this.stacksProvider = stacksProvider;
@@ -75,7 +108,9 @@ public class AsyncSearchManager {
     }
     
     public void markDirty() {
+        this.generation.incrementAndGet();
         this.dirty = true;
+        this.invalidated = true;
     }
     
     public void markFilterDirty() {
@@ -85,7 +120,8 @@ public class AsyncSearchManager {
     public void updateFilter(String filter) {
         if (this.filter == null || !this.filter.getFilter().equals(filter)) {
             this.filter = SearchProvider.getInstance().createFilter(filter);
-            markDirty();
+            this.generation.incrementAndGet();
+            this.dirty = true;
             markFilterDirty();
         }
     }
@@ -99,68 +135,272 @@ public class AsyncSearchManager {
     }
     
     public Future<Void> getAsync(Consumer<List<EntryStack<?>>> consumer) {
-        if (future == null || future.isCancelled() || future.isDone() || future.isCompletedExceptionally()) {
+        return getAsync(null, consumer);
+    }
+    
+    /**
+     * Searches asynchronously, superseded searches are cancelled once the filter changes or the manager is marked dirty.
+     *
+     * @param partialConsumer the consumer of the partial results, in order, called from the search threads
+     * @param consumer        the consumer of the complete results
+     * @return the future of the search
+     */
+    public Future<Void> getAsync(@Nullable Consumer<List<EntryStack<?>>> partialConsumer, Consumer<List<EntryStack<?>>> consumer) {
+        long generation = this.generation.get();
+        if (future == null || future.isCancelled() || future.isDone() || future.isCompletedExceptionally() || futureGeneration != generation) {
             if (future != null) future.cancel(true);
-            future = CompletableFuture.supplyAsync(this::get)
+            futureGeneration = generation;
+            future = CompletableFuture.supplyAsync(() -> get(partialConsumer))
                     .exceptionally(throwable -> {
-                        throwable.printStackTrace();
+                        if (!(throwable instanceof CancellationException) && !(throwable.getCause() instanceof CancellationException)) {
+                            throwable.printStackTrace();
+                        }
                         return null;
                     });
         }
-        return future.thenAccept(consumer);
+        return future.thenAccept(list -> {
+            if (list != null) {
+                consumer.accept(list);
+            }
+        });
     }
     
     public List<EntryStack<?>> get() {
+        return get(null);
+    }
+    
+    private synchronized List<EntryStack<?>> get(@Nullable Consumer<List<EntryStack<?>>> partialConsumer) {
         if (isDirty()) {
-            this.additionalPredicate = additionalPredicateSupplier.get();
-            int searchPartitionSize = ConfigObject.getInstance().getAsyncSearchPartitionSize();
+            long generation = this.generation.get();
+            SearchFilter filter = this.filter;
+            Predicate<EntryStack<?>> additionalPredicate = this.additionalPredicate = additionalPredicateSupplier.get();
             List<EntryStack<?>> stacks = stacksProvider.get();
-            last = new ArrayList<>();
+            if (invalidated || stacks != lastStacks) {
+                invalidated = false;
+                recentResults.clear();
+                lastFilter = null;
+                lastStacks = stacks;
+                positions = null;
+            }
             
-            if (!stacks.isEmpty()) {
-                if (filterDirty) {
-                    filter.prepareFilter(stacks);
-                    filterDirty = false;
-                }
-                
-                if (ConfigObject.getInstance().shouldAsyncSearch() && stacks.size() > searchPartitionSize * 4) {
-                    List<CompletableFuture<List<EntryStack<?>>>> futures = Lists.newArrayList();
-                    for (Iterable<EntryStack<?>> partitionStacks : CollectionUtils.partition(stacks, searchPartitionSize)) {
-                        futures.add(CompletableFuture.supplyAsync(() -> {
-                            List<EntryStack<?>> filtered = Lists.newArrayList();
-                            for (EntryStack<?> stack : partitionStacks) {
-                                if (stack != null && matches(stack) && additionalPredicate.test(stack)) {
-                                    filtered.add(transformer.apply(stack));
-                                }
-                            }
-                            return filtered;
-                        }));
-                    }
-                    try {
-                        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get(10, TimeUnit.SECONDS);
-                    } catch (InterruptedException | ExecutionException | TimeoutException e) {
-                        e.printStackTrace();
-                    }
-                    for (CompletableFuture<List<EntryStack<?>>> future : futures) {
-                        List<EntryStack<?>> now = future.getNow(null);
-                        if (now != null) last.addAll(now);
-                    }
-                } else {
-                    for (EntryStack<?> stack : stacks) {
-                        if (matches(stack) && additionalPredicate.test(stack)) {
-                            last.add(transformer.apply(stack));
-                        }
-                    }
-                }
+            SearchResult cached = recentResults.get(filter.getFilter());
+            if (cached != null) {
+                last = cached.result();
+                lastFilter = filter;
+                lastMatched = cached.matched();
+                lastResult = cached;
+                if (this.generation.get() == generation) dirty = false;
+                return last;
+            }
+            
+            if (!stacks.isEmpty() && filterDirty) {
+                filter.prepareFilter(stacks);
+                filterDirty = false;
+            }
+            
+            // the new filter only narrows the last one, so we only have to filter the last matches
+            if (lastFilter != null && narrows(filter, lastFilter)) {
+                stacks = lastMatched;
+            } else {
+                stacks = preselect(stacks, filter);
             }
             
-            dirty = false;
+            Predicate<EntryStack<?>> predicate = stack -> stack != null && filter.test(stack) && additionalPredicate.test(stack);
+            SearchResult result;
+            
+            if (ConfigObject.getInstance().shouldAsyncSearch() && stacks.size() > ConfigObject.getInstance().getAsyncSearchPartitionSize() * 4) {
+                result = filterAsync(stacks, predicate, generation, partialConsumer);
+            } else {
+                List<EntryStack<?>> matched = filter(stacks, predicate, generation);
+                result = new SearchResult(matched, CollectionUtils.map(matched, transformer), true);
+            }
+            
+            last = result.result();
+            lastResult = result;
+            if (result.complete()) {
+                lastFilter = filter;
+                lastMatched = result.matched();
+                recentResults.put(filter.getFilter(), result);
+            } else {
+                // chunks failed or timed out, the result must not be narrowed down further
+                lastFilter = null;
+                lastMatched = null;
+            }
+            if (this.generation.get() == generation) dirty = false;
         }
         
         return last;
     }
     
+    private SearchResult filterAsync(List<EntryStack<?>> stacks, Predicate<EntryStack<?>> predicate, long generation, @Nullable Consumer<List<EntryStack<?>>> partialConsumer) {
+        // split into a few chunks per thread, idle threads steal the remaining chunks
+        int chunks = EXECUTOR.getParallelism() * 4;
+        List<List<EntryStack<?>>> partitions = Lists.partition(stacks, Math.max(MIN_CHUNK_SIZE, (stacks.size() + chunks - 1) / chunks));
+        PartialResults partialResults = new PartialResults(partitions.size(), generation, partialConsumer);
+        List<CompletableFuture<List<EntryStack<?>>>> futures = Lists.newArrayList();
+        for (int i = 0; i < partitions.size(); i++) {
+            int index = i;
+            futures.add(CompletableFuture.supplyAsync(() -> filter(partitions.get(index), predicate, generation), EXECUTOR)
+                    .whenComplete((filtered, throwable) -> {
+                        if (filtered != null) partialResults.complete(index, filtered);
+                    }));
+        }
+        try {
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get(10, TimeUnit.SECONDS);
+        } catch (InterruptedException | ExecutionException | TimeoutException | CancellationException e) {
+            checkCancelled(generation);
+            e.printStackTrace();
+        }
+        checkCancelled(generation);
+        return partialResults.collect(futures);
+    }
+    
+    private List<EntryStack<?>> filter(List<EntryStack<?>> stacks, Predicate<EntryStack<?>> predicate, long generation) {
+        List<EntryStack<?>> filtered = new ArrayList<>();
+        for (int i = 0; i < stacks.size(); i++) {
+            if ((i & 255) == 0) checkCancelled(generation);
+            EntryStack<?> stack = stacks.get(i);
+            if (predicate.test(stack)) {
+                filtered.add(stack);
+            }
+        }
+        return filtered;
+    }
+    
+    private void checkCancelled(long generation) {
+        if (this.generation.get() != generation) {
+            throw new CancellationException("Search was superseded");
+        }
+    }
+    
+    /**
+     * Narrows the stacks down to the candidates of the trigram index, in their original order.
+     */
+    private List<EntryStack<?>> preselect(List<EntryStack<?>> stacks, SearchFilter filter) {
+        if (!(filter instanceof SearchProviderImpl.SearchFilterImpl)) return stacks;
+        SearchAttributeTable table = SearchAttributeTable.getInstance();
+        BitSet candidates = Argument.getCandidates(((SearchProviderImpl.SearchFilterImpl) filter).getArguments(), table);
+        if (candidates == null) return stacks;
+        StackPositions positions = this.positions;
+        if (positions == null || positions.table() != table) {
+            this.positions = positions = StackPositions.of(table, stacks);
+        }
+        // not worth it if most of the stacks have to be tested anyway
+        if (candidates.cardinality() + positions.unindexed().length >= positions.stacks().length / 2) return stacks;
+        IntArrayList selected = new IntArrayList(positions.unindexed());
+        for (int i = candidates.nextSetBit(0); i >= 0 && i < positions.positions().length; i = candidates.nextSetBit(i + 1)) {
+            int position = positions.positions()[i];
+            if (position >= 0) selected.add(position);
+        }
+        int[] array = selected.toIntArray();
+        Arrays.sort(array);
+        List<EntryStack<?>> preselected = new ArrayList<>(array.length);
+        for (int position : array) {
+            preselected.add(positions.stacks()[position]);
+        }
+        return preselected;
+    }
+    
+    private static boolean narrows(SearchFilter filter, SearchFilter previousFilter) {
+        if (filter instanceof SearchProviderImpl.SearchFilterImpl && previousFilter instanceof SearchProviderImpl.SearchFilterImpl) {
+            return Argument.narrows(((SearchProviderImpl.SearchFilterImpl) filter).getArguments(),
+                    ((SearchProviderImpl.SearchFilterImpl) previousFilter).getArguments());
+        }
+        return false;
+    }
+    
+    /**
+     * Returns the stacks matching the search before they were transformed, in the same order as the result.
+     *
+     * @param result the result of the search
+     * @return the matched stacks, or {@code null} if the result is not the last result
+     */
+    @Nullable
+    public List<EntryStack<?>> getMatched(List<EntryStack<?>> result) {
+        SearchResult lastResult = this.lastResult;
+        return lastResult != null && lastResult.result() == result ? lastResult.matched() : null;
+    }
+    
     public boolean matches(EntryStack<?> stack) {
         return filter.test(stack);
     }
+    
+    private class PartialResults {
+        private final List<EntryStack<?>>[] completed;
+        private final long generation;
+        @Nullable
+        private final Consumer<List<EntryStack<?>>> consumer;
+        private final List<EntryStack<?>> matched = new ArrayList<>();
+        private final List<EntryStack<?>> result = new ArrayList<>();
+        private int prefix = 0;
+        private long lastPushed = -1;
+        
+        private PartialResults(int size, long generation, @Nullable Consumer<List<EntryStack<?>>> consumer) {
+            this.completed = new List[size];
+            this.generation = generation;
+            this.consumer = consumer;
+        }
+        
+        private synchronized void complete(int index, List<EntryStack<?>> filtered) {
+            completed[index] = filtered;
+            int lastPrefix = prefix;
+            advance();
+            if (consumer != null && prefix > lastPrefix && prefix < completed.length && !result.isEmpty()
+                && AsyncSearchManager.this.generation.get() == generation) {
+                long now = System.currentTimeMillis();
+                if (lastPushed < 0 || now - lastPushed >= PARTIAL_RESULTS_INTERVAL) {
+                    lastPushed = now;
+                    consumer.accept(new ArrayList<>(result));
+                }
+            }
+        }
+        
+        private void advance() {
+            while (prefix < completed.length && completed[prefix] != null) {
+                for (EntryStack<?> stack : completed[prefix]) {
+                    matched.add(stack);
+                    result.add(transformer.apply(stack));
+                }
+                completed[prefix++] = null;
+            }
+        }
+        
+        private synchronized SearchResult collect(List<CompletableFuture<List<EntryStack<?>>>> futures) {
+            // chunks that failed or timed out are treated as empty, and the result is incomplete
+            boolean complete = true;
+            for (int i = prefix; i < completed.length; i++) {
+                CompletableFuture<List<EntryStack<?>>> future = futures.get(i);
+                if (completed[i] == null) {
+                    boolean succeeded = future.isDone() && !future.isCompletedExceptionally();
+                    complete &= succeeded;
+                    completed[i] = succeeded ? future.join() : Collections.emptyList();
+                }
+            }
+            advance();
+            return new SearchResult(matched, result, complete);
+        }
+    }
+    
+    private record SearchResult(List<EntryStack<?>> matched, List<EntryStack<?>> result, boolean complete) {}
+    
+    /**
+     * Snapshot of the stacks with the position of each entry of the {@link SearchAttributeTable}, stacks outside the table are unindexed.
+     */
+    private record StackPositions(SearchAttributeTable table, EntryStack<?>[] stacks, int[] positions, int[] unindexed) {
+        private static StackPositions of(SearchAttributeTable table, List<EntryStack<?>> stackList) {
+            EntryStack<?>[] stacks = stackList.toArray(new EntryStack[0]);
+            int[] positions = new int[table.size()];
+            Arrays.fill(positions, -1);
+            IntArrayList unindexed = new IntArrayList();
+            for (int i = 0; i < stacks.length; i++) {
+                int index = stacks[i] == null ? -1 : table.indexOf(stacks[i]);
+                if (index >= 0 && positions[index] == -1) {
+                    positions[index] = i;
+                } else {
+                    unindexed.add(i);
+                }
+            }
+            return new StackPositions(table, stacks, positions, unindexed.toIntArray());
+        }
+    }
 }
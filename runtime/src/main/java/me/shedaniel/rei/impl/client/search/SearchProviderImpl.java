@@ -87,6 +87,10 @@ public class SearchProviderImpl implements SearchProvider {
             Argument.prepareFilter(stacks, argumentTypes);
         }
         
+        public List<CompoundArgument> getArguments() {
+            return arguments;
+        }
+        
         @Override
         public String getFilter() {
             return filter;
@@ -30,11 +30,7 @@ import it.unimi.dsi.fastutil.ints.IntIntMutablePair;
 import it.unimi.dsi.fastutil.ints.IntIntPair;
 import it.unimi.dsi.fastutil.longs.Long2ObjectArrayMap;
 import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
-import it.unimi.dsi.fastutil.longs.Long2ObjectMaps;
 import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
-import it.unimi.dsi.fastutil.shorts.Short2ObjectMap;
-import it.unimi.dsi.fastutil.shorts.Short2ObjectMaps;
-import it.unimi.dsi.fastutil.shorts.Short2ObjectOpenHashMap;
 import me.shedaniel.rei.api.client.config.ConfigObject;
 import me.shedaniel.rei.api.client.gui.config.SearchMode;
 import me.shedaniel.rei.api.common.entry.EntryStack;
@@ -45,25 +41,25 @@ import me.shedaniel.rei.impl.client.search.argument.type.AlwaysMatchingArgumentT
 import me.shedaniel.rei.impl.client.search.argument.type.ArgumentType;
 import me.shedaniel.rei.impl.client.search.argument.type.ArgumentTypesRegistry;
 import me.shedaniel.rei.impl.client.search.result.ArgumentApplicableResult;
-import me.shedaniel.rei.impl.common.util.HashedEntryStackWrapper;
+import me.shedaniel.rei.impl.client.util.ClientThreadStage;
 import net.fabricmc.api.EnvType;
 import net.fabricmc.api.Environment;
 import net.minecraft.Util;
-import net.minecraft.client.Minecraft;
 import net.minecraft.util.Unit;
 import org.apache.commons.lang3.StringUtils;
 import org.jetbrains.annotations.ApiStatus;
 import org.jetbrains.annotations.Nullable;
 
+import java.util.BitSet;
 import java.util.Collection;
 import java.util.List;
 import java.util.Locale;
-import java.util.Objects;
+import java.util.Queue;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
-import java.util.concurrent.atomic.AtomicReference;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -71,8 +67,7 @@ import java.util.regex.Pattern;
 @Environment(EnvType.CLIENT)
 public class Argument<T, R> {
     public static final String SPACE = " ", EMPTY = "";
-    public static final Short2ObjectMap<Long2ObjectMap<Object>> SEARCH_CACHE = Short2ObjectMaps.synchronize(new Short2ObjectOpenHashMap<>());
-    private static final AtomicReference<String> lastLanguage = new AtomicReference<>();
+    public static final SearchCache SEARCH_CACHE = new SearchCache();
     static final Argument<Unit, Unit> ALWAYS = new Argument<>(AlwaysMatchingArgumentType.INSTANCE, EMPTY, true, -1, -1, true);
     private ArgumentType<T, R> argumentType;
     private String text;
@@ -184,15 +179,15 @@ public class Argument<T, R> {
     @ApiStatus.Internal
     public static boolean matches(EntryStack<?> stack, List<CompoundArgument> compoundArguments) {
         if (compoundArguments.isEmpty()) return true;
-        String newLanguage = Minecraft.getInstance().options.languageCode;
-        if (!Objects.equals(lastLanguage.getAndSet(newLanguage), newLanguage)) {
-            SEARCH_CACHE.clear();
-        }
+        SearchAttributeTable table = SearchAttributeTable.getInstance();
+        int index = table.indexOf(stack);
+        // only stacks outside the attribute table are looked up by hash
+        long hashExact = index >= 0 ? 0 : EntryStacks.hashExact(stack);
         
         a:
         for (CompoundArgument arguments : compoundArguments) {
             for (AlternativeArgument argument : arguments) {
-                if (!matches(stack, argument)) {
+                if (!matches(stack, argument, table, index, hashExact)) {
                     continue a;
                 }
             }
@@ -203,12 +198,11 @@ public class Argument<T, R> {
         return false;
     }
     
-    private static <T, R, Z, B> boolean matches(EntryStack<?> stack, AlternativeArgument alternativeArgument) {
+    private static <T, R, Z, B> boolean matches(EntryStack<?> stack, AlternativeArgument alternativeArgument, SearchAttributeTable table, int index, long hashExact) {
         if (alternativeArgument.isEmpty()) return true;
-        long hashExact = EntryStacks.hashExact(stack);
         
         for (Argument<?, ?> argument : alternativeArgument) {
-            if (matches(argument.getArgument(), stack, hashExact, argument.getText(), argument.filterData) == argument.isRegular()) {
+            if (matches(argument.getArgument(), stack, table, index, hashExact, argument.getText(), argument.filterData) == argument.isRegular()) {
                 return true;
             }
         }
@@ -216,21 +210,124 @@ public class Argument<T, R> {
         return false;
     }
     
-    private static Long2ObjectMap<Object> getSearchCache(ArgumentType<?, ?> argumentType) {
-        short argumentIndex = (short) argumentType.getIndex();
-        Long2ObjectMap<Object> map = SEARCH_CACHE.get(argumentIndex);
-        if (map == null) {
-            SEARCH_CACHE.put(argumentIndex, map = Long2ObjectMaps.synchronize(new Long2ObjectOpenHashMap<>()));
+    /**
+     * Returns whether every stack matched by {@code compoundArguments} is also matched by {@code previousArguments}.
+     * This is conservative, {@code false} does not imply the opposite.
+     */
+    @ApiStatus.Internal
+    public static boolean narrows(List<CompoundArgument> compoundArguments, List<CompoundArgument> previousArguments) {
+        if (previousArguments.isEmpty()) return true;
+        if (compoundArguments.isEmpty()) return false;
+        
+        a:
+        for (CompoundArgument arguments : compoundArguments) {
+            for (CompoundArgument previous : previousArguments) {
+                if (narrows(arguments, previous)) {
+                    continue a;
+                }
+            }
+            
+            return false;
+        }
+        
+        return true;
+    }
+    
+    private static boolean narrows(CompoundArgument arguments, CompoundArgument previousArguments) {
+        a:
+        for (AlternativeArgument previous : previousArguments) {
+            for (AlternativeArgument argument : arguments) {
+                if (narrows(argument, previous)) {
+                    continue a;
+                }
+            }
+            
+            return false;
+        }
+        
+        return true;
+    }
+    
+    private static boolean narrows(AlternativeArgument alternativeArgument, AlternativeArgument previousArgument) {
+        if (previousArgument.isEmpty()) return true;
+        if (alternativeArgument.isEmpty()) return false;
+        
+        a:
+        for (Argument<?, ?> argument : alternativeArgument) {
+            for (Argument<?, ?> previous : previousArgument) {
+                if (argument.narrows(previous)) {
+                    continue a;
+                }
+            }
+            
+            return false;
+        }
+        
+        return true;
+    }
+    
+    private boolean narrows(Argument<?, ?> previous) {
+        if (argumentType != previous.argumentType || regular != previous.regular) return false;
+        if (regular) {
+            return argumentType.narrows(text, previous.text);
+        } else {
+            return argumentType.narrows(previous.text, text);
         }
-        return map;
     }
     
-    private static <T, R, B> boolean matches(ArgumentType<T, B> argumentType, EntryStack<?> stack, long hashExact, String filter, R filterData) {
-        Long2ObjectMap<Object> map = getSearchCache(argumentType);
-        B value = (B) map.get(hashExact);
+    /**
+     * Returns the entries of the {@link SearchAttributeTable} that may match {@code compoundArguments}, by the indices of the table.
+     * Stacks outside the table are not covered and have to be tested regardless.
+     *
+     * @return the candidates, or {@code null} if every entry may match
+     */
+    @ApiStatus.Internal
+    @Nullable
+    public static BitSet getCandidates(List<CompoundArgument> compoundArguments, SearchAttributeTable table) {
+        if (compoundArguments.isEmpty()) return null;
+        BitSet candidates = new BitSet();
+        for (CompoundArgument arguments : compoundArguments) {
+            BitSet compoundCandidates = null;
+            for (AlternativeArgument argument : arguments) {
+                BitSet alternativeCandidates = getCandidates(argument, table);
+                if (alternativeCandidates == null) continue;
+                if (compoundCandidates == null) {
+                    compoundCandidates = (BitSet) alternativeCandidates.clone();
+                } else {
+                    compoundCandidates.and(alternativeCandidates);
+                }
+            }
+            if (compoundCandidates == null) return null;
+            candidates.or(compoundCandidates);
+        }
+        return candidates;
+    }
+    
+    @Nullable
+    private static BitSet getCandidates(AlternativeArgument alternativeArgument, SearchAttributeTable table) {
+        if (alternativeArgument.isEmpty()) return null;
+        if (alternativeArgument.size() == 1) {
+            Argument<?, ?> argument = alternativeArgument.get(0);
+            return argument.isRegular() ? argument.getArgument().getCandidates(table, argument.getText()) : null;
+        }
+        BitSet candidates = new BitSet();
+        for (Argument<?, ?> argument : alternativeArgument) {
+            BitSet argumentCandidates = argument.isRegular() ? argument.getArgument().getCandidates(table, argument.getText()) : null;
+            if (argumentCandidates == null) return null;
+            candidates.or(argumentCandidates);
+        }
+        return candidates;
+    }
+    
+    private static <T, R, B> boolean matches(ArgumentType<T, B> argumentType, EntryStack<?> stack, SearchAttributeTable table, int index, long hashExact, String filter, R filterData) {
+        if (index >= 0) {
+            return argumentType.matches(table, index, stack, filter, (T) filterData);
+        }
+        SearchCache.TypeCache cache = SEARCH_CACHE.get(argumentType);
+        B value = (B) cache.get(hashExact);
         if (value == null) {
             value = argumentType.cacheData(stack);
-            map.put(hashExact, value);
+            cache.put(hashExact, value);
         }
         return argumentType.matches(value, stack, filter, (T) filterData);
     }
@@ -247,49 +344,62 @@ public class Argument<T, R> {
             prepareStacks = stacks;
             prepareStage = new IntIntMutablePair(0, argumentTypes.size());
             currentStages = new IntIntPair[argumentTypes.size()];
-            List<HashedEntryStackWrapper> hashedStacks = CollectionUtils.map(stacks, HashedEntryStackWrapper::new);
+            SearchAttributeTable table = SearchAttributeTable.getInstance();
+            List<PreparingStack> preparingStacks = CollectionUtils.map(stacks, stack -> {
+                int index = table.indexOf(stack);
+                return new PreparingStack(stack, index, index >= 0 ? 0 : EntryStacks.hashExact(stack));
+            });
             int searchPartitionSize = ConfigObject.getInstance().getAsyncSearchPartitionSize();
             boolean async = ConfigObject.getInstance().shouldAsyncSearch() && stacks.size() > searchPartitionSize * 4;
             List<CompletableFuture<Long2ObjectMap<Object>>> futures = Lists.newArrayList();
             List<Pair<ArgumentType<?, ?>, CompletableFuture<Long2ObjectMap<Object>>>> pairs = Lists.newArrayList();
             
+            List<CompletableFuture<Void>> clientThreadFutures = Lists.newArrayList();
+            
             for (ArgumentType<?, ?> argumentType : argumentTypes) {
                 prepareStage.first(prepareStage.firstInt() + 1);
-                Long2ObjectMap<Object> map = getSearchCache(argumentType);
-                IntIntPair currentStage = currentStages[prepareStage.firstInt() - 1] = new IntIntMutablePair(0, hashedStacks.size());
+                SearchCache.TypeCache cache = SEARCH_CACHE.get(argumentType);
+                IntIntPair currentStage = currentStages[prepareStage.firstInt() - 1] = new IntIntMutablePair(0, preparingStacks.size());
+                // stacks that failed on the workers, prepared again on the client thread
+                Queue<PreparingStack> deferred = new ConcurrentLinkedQueue<>();
                 
                 if (async) {
-                    for (Collection<HashedEntryStackWrapper> partitionStacks : CollectionUtils.partition(hashedStacks, searchPartitionSize)) {
+                    List<CompletableFuture<Long2ObjectMap<Object>>> typeFutures = Lists.newArrayList();
+                    for (Collection<PreparingStack> partitionStacks : CollectionUtils.partition(preparingStacks, searchPartitionSize)) {
                         CompletableFuture<Long2ObjectMap<Object>> future = CompletableFuture.supplyAsync(() -> {
                             Long2ObjectMap<Object> out = new Long2ObjectArrayMap<>(searchPartitionSize + 1);
-                            for (HashedEntryStackWrapper stack : partitionStacks) {
-                                if (map.get(stack.hashExact()) == null) {
-                                    Object data = argumentType.cacheData(stack.unwrap());
-                                    
-                                    if (data != null) {
-                                        out.put(stack.hashExact(), data);
+                            int prepared = 0;
+                            try {
+                                for (PreparingStack stack : partitionStacks) {
+                                    if (tryPrepare(argumentType, table, cache, stack, out)) {
+                                        prepared++;
+                                    } else {
+                                        deferred.add(stack);
                                     }
                                 }
+                            } finally {
+                                currentStage.first(currentStage.firstInt() + prepared);
                             }
                             return out;
-                        }).whenComplete((objectLong2ObjectMap, throwable) -> {
-                            currentStage.first(currentStage.firstInt() + partitionStacks.size());
                         });
                         futures.add(future);
+                        typeFutures.add(future);
                         pairs.add(Pair.of(argumentType, future));
                     }
+                    clientThreadFutures.add(CompletableFuture.allOf(typeFutures.toArray(new CompletableFuture[0]))
+                            .exceptionally(throwable -> null)
+                            .thenCompose(unused -> prepareOnClientThread(argumentType, table, cache, deferred, currentStage)));
                 } else {
-                    for (HashedEntryStackWrapper stack : hashedStacks) {
-                        currentStage.first(currentStage.firstInt() + 1);
-                        
-                        if (map.get(stack.hashExact()) == null) {
-                            Object data = argumentType.cacheData(stack.unwrap());
-                            
-                            if (data != null) {
-                                map.put(stack.hashExact(), data);
-                            }
+                    Long2ObjectMap<Object> out = new Long2ObjectOpenHashMap<>();
+                    for (PreparingStack stack : preparingStacks) {
+                        if (tryPrepare(argumentType, table, cache, stack, out)) {
+                            currentStage.first(currentStage.firstInt() + 1);
+                        } else {
+                            deferred.add(stack);
                         }
                     }
+                    cache.putAll(out);
+                    clientThreadFutures.add(prepareOnClientThread(argumentType, table, cache, deferred, currentStage));
                 }
             }
             
@@ -301,9 +411,24 @@ public class Argument<T, R> {
                 }
                 for (Pair<ArgumentType<?, ?>, CompletableFuture<Long2ObjectMap<Object>>> pair : pairs) {
                     Long2ObjectMap<Object> now = pair.second().getNow(null);
-                    if (now != null) getSearchCache(pair.left()).putAll(now);
+                    if (now != null) SEARCH_CACHE.get(pair.left()).putAll(now);
                 }
             }
+            
+            // the client thread stage keeps feeding the caches if it does not finish in time
+            try {
+                CompletableFuture.allOf(clientThreadFutures.toArray(new CompletableFuture[0])).get(10, TimeUnit.SECONDS);
+            } catch (InterruptedException | ExecutionException | TimeoutException e) {
+                e.printStackTrace();
+            }
+            
+            for (ArgumentType<?, ?> argumentType : argumentTypes) {
+                if (argumentType.isNgramIndexed()) {
+                    table.buildNgramIndex(argumentType);
+                }
+            }
+            
+            SearchDataDiskCache.saveAsync(table);
         } finally {
             prepareStart = null;
             prepareStacks = null;
@@ -312,6 +437,42 @@ public class Argument<T, R> {
         }
     }
     
+    /**
+     * Prepares the stack from a search worker, the data of stacks not in the {@link SearchAttributeTable} is put in {@code out}.
+     *
+     * @return whether the stack was prepared, {@code false} if it has to be prepared on the client thread
+     */
+    private static boolean tryPrepare(ArgumentType<?, ?> argumentType, SearchAttributeTable table, SearchCache.TypeCache cache,
+                                      PreparingStack stack, Long2ObjectMap<Object> out) {
+        if (stack.index() >= 0) {
+            return argumentType.tryPrepare(table, stack.index());
+        } else if (!cache.contains(stack.hashExact())) {
+            Object data = argumentType.tryCacheData(stack.stack());
+            if (data == null) return false;
+            out.put(stack.hashExact(), data);
+        }
+        return true;
+    }
+    
+    private static CompletableFuture<Void> prepareOnClientThread(ArgumentType<?, ?> argumentType, SearchAttributeTable table, SearchCache.TypeCache cache,
+                                                                 Collection<PreparingStack> stacks, IntIntPair currentStage) {
+        List<Runnable> work = CollectionUtils.map(stacks, stack -> () -> {
+            if (stack.index() >= 0) {
+                argumentType.prepare(table, stack.index());
+            } else {
+                Object data = argumentType.cacheData(stack.stack());
+                
+                if (data != null) {
+                    cache.put(stack.hashExact(), data);
+                }
+            }
+            currentStage.first(currentStage.firstInt() + 1);
+        });
+        return ClientThreadStage.submit(work);
+    }
+    
+    private record PreparingStack(EntryStack<?> stack, int index, long hashExact) {}
+    
     public ArgumentType<?, ?> getArgument() {
         return argumentType;
     }
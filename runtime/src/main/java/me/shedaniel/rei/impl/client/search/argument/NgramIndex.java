@@ -0,0 +1,196 @@
+/*
+ * This file is licensed under the MIT License, part of Roughly Enough Items.
+ * Copyright (c) 2018, 2019, 2020, 2021, 2022 shedaniel
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package me.shedaniel.rei.impl.client.search.argument;
+
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import net.fabricmc.api.EnvType;
+import net.fabricmc.api.Environment;
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Trigram index over a string column of the {@link SearchAttributeTable}.
+ * <p>
+ * Every trigram maps to the sorted indices of the entries containing it, a substring query is answered
+ * by intersecting the postings of its trigrams. The result is a superset of the matching entries,
+ * entries that were not computed when the index was built are always candidates.
+ */
+@ApiStatus.Internal
+@Environment(EnvType.CLIENT)
+public class NgramIndex {
+    private static final int N = 3;
+    private static final int MAX_QUERIES = 64;
+    private final int size;
+    private final Long2ObjectMap<int[]> postings;
+    private final BitSet unindexed;
+    private final Map<String, BitSet> queries = new ConcurrentHashMap<>();
+    private final long buildTime;
+    private final long postingsSize;
+    
+    private NgramIndex(int size, Long2ObjectMap<int[]> postings, BitSet unindexed, long buildTime, long postingsSize) {
+        this.size = size;
+        this.postings = postings;
+        this.unindexed = unindexed;
+        this.buildTime = buildTime;
+        this.postingsSize = postingsSize;
+    }
+    
+    /**
+     * Builds the index of a column, {@code null} values are not indexed.
+     *
+     * @param column the values of the column
+     * @return the index
+     */
+    public static NgramIndex build(Object[] column) {
+        long start = System.nanoTime();
+        Long2ObjectOpenHashMap<IntArrayList> lists = new Long2ObjectOpenHashMap<>();
+        BitSet unindexed = new BitSet(column.length);
+        for (int i = 0; i < column.length; i++) {
+            if (!(column[i] instanceof String value)) {
+                unindexed.set(i);
+                continue;
+            }
+            for (int j = 0; j + N <= value.length(); j++) {
+                IntArrayList list = lists.get(ngram(value, j));
+                if (list == null) {
+                    lists.put(ngram(value, j), list = new IntArrayList(4));
+                }
+                // entries are visited in order, so a repeated trigram is always the last element
+                if (list.isEmpty() || list.getInt(list.size() - 1) != i) {
+                    list.add(i);
+                }
+            }
+        }
+        Long2ObjectOpenHashMap<int[]> postings = new Long2ObjectOpenHashMap<>(lists.size());
+        long postingsSize = 0;
+        for (Long2ObjectMap.Entry<IntArrayList> entry : lists.long2ObjectEntrySet()) {
+            int[] array = entry.getValue().toIntArray();
+            postings.put(entry.getLongKey(), array);
+            postingsSize += array.length;
+        }
+        postings.trim();
+        return new NgramIndex(column.length, postings, unindexed, System.nanoTime() - start, postingsSize);
+    }
+    
+    private static long ngram(String value, int start) {
+        return ((long) value.charAt(start) << 32) | ((long) value.charAt(start + 1) << 16) | value.charAt(start + 2);
+    }
+    
+    /**
+     * Returns the entries that may contain {@code searchText}, the returned bitset must not be modified.
+     *
+     * @param searchText the text to search
+     * @return the candidates, or {@code null} if the text is too short to be looked up
+     */
+    @Nullable
+    public BitSet candidates(String searchText) {
+        if (searchText.length() < N) return null;
+        BitSet bitSet = queries.get(searchText);
+        if (bitSet == null) {
+            bitSet = lookup(searchText);
+            if (queries.size() >= MAX_QUERIES) {
+                queries.clear();
+            }
+            queries.put(searchText, bitSet);
+        }
+        return bitSet;
+    }
+    
+    private BitSet lookup(String searchText) {
+        LongOpenHashSet seen = new LongOpenHashSet();
+        LongArrayList ngrams = new LongArrayList();
+        for (int i = 0; i + N <= searchText.length(); i++) {
+            long ngram = ngram(searchText, i);
+            if (seen.add(ngram)) ngrams.add(ngram);
+        }
+        // intersect starting from the rarest trigram
+        int[][] lists = new int[ngrams.size()][];
+        for (int i = 0; i < lists.length; i++) {
+            lists[i] = postings.get(ngrams.getLong(i));
+            if (lists[i] == null) {
+                return (BitSet) unindexed.clone();
+            }
+        }
+        Arrays.sort(lists, Comparator.comparingInt(list -> list.length));
+        int[] result = lists[0];
+        int length = result.length;
+        if (lists.length > 1) {
+            // intersected in place, the postings themselves are never modified
+            result = result.clone();
+            for (int i = 1; i < lists.length && length > 0; i++) {
+                length = intersect(result, length, lists[i], result);
+            }
+        }
+        BitSet bitSet = (BitSet) unindexed.clone();
+        for (int i = 0; i < length; i++) {
+            bitSet.set(result[i]);
+        }
+        return bitSet;
+    }
+    
+    private static int intersect(int[] a, int aLength, int[] b, int[] out) {
+        int i = 0, j = 0, length = 0;
+        while (i < aLength && j < b.length) {
+            if (a[i] < b[j]) i++;
+            else if (a[i] > b[j]) j++;
+            else {
+                out[length++] = a[i];
+                i++;
+                j++;
+            }
+        }
+        return length;
+    }
+    
+    public int size() {
+        return size;
+    }
+    
+    public int ngrams() {
+        return postings.size();
+    }
+    
+    public long getBuildTime() {
+        return buildTime;
+    }
+    
+    /**
+     * Estimates the retained size of the index in bytes.
+     */
+    public long bytes() {
+        // open hash map slots, array headers and postings
+        long slots = (long) (postings.size() / 0.75f) + 1;
+        return slots * (8 + 8) + postings.size() * 16L + postingsSize * 4 + unindexed.size() / 8;
+    }
+}
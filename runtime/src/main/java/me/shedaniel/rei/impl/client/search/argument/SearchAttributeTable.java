@@ -0,0 +1,315 @@
+/*
+ * This file is licensed under the MIT License, part of Roughly Enough Items.
+ * Copyright (c) 2018, 2019, 2020, 2021, 2022 shedaniel
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package me.shedaniel.rei.impl.client.search.argument;
+
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
+import it.unimi.dsi.fastutil.objects.Object2IntMap;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+import it.unimi.dsi.fastutil.objects.Reference2IntOpenHashMap;
+import me.shedaniel.rei.RoughlyEnoughItemsCore;
+import me.shedaniel.rei.api.client.config.ConfigObject;
+import me.shedaniel.rei.api.common.entry.EntryStack;
+import me.shedaniel.rei.impl.client.config.ConfigObjectImpl;
+import me.shedaniel.rei.impl.client.search.argument.type.ArgumentType;
+import me.shedaniel.rei.impl.client.search.argument.type.ArgumentTypesRegistry;
+import me.shedaniel.rei.impl.client.search.argument.type.TagArgumentType;
+import me.shedaniel.rei.impl.client.search.argument.type.TextArgumentType;
+import me.shedaniel.rei.impl.client.search.argument.type.TooltipArgumentType;
+import net.fabricmc.api.EnvType;
+import net.fabricmc.api.Environment;
+import net.minecraft.client.Minecraft;
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Columnar table of the search data of the registered entries, indexed by the position of the entry in the registry.
+ * <p>
+ * Entries are looked up by identity, so searching the registered entries does not hash the stacks.
+ * Columns are filled lazily and dropped when the language changes, tags are stored as bitsets over the entries.
+ * String columns are restored from the {@link SearchDataDiskCache} when the columns of a language are created.
+ * Text columns may be indexed by a {@link NgramIndex} once they are prepared.
+ * Stacks not in the table fall back to {@link SearchCache}.
+ */
+@ApiStatus.Internal
+@Environment(EnvType.CLIENT)
+public class SearchAttributeTable {
+    private static final int MAX_TAG_QUERIES = 64;
+    private static volatile SearchAttributeTable instance = new SearchAttributeTable(Collections.emptyList());
+    private final EntryStack<?>[] stacks;
+    private final Reference2IntOpenHashMap<EntryStack<?>> indices;
+    private final Interner<String> strings = Interners.newStrongInterner();
+    @Nullable
+    private volatile Columns columns;
+    @Nullable
+    private volatile TagColumn tags;
+    
+    static {
+        RoughlyEnoughItemsCore.PERFORMANCE_LOGGER.statistic("Search Cache", "attribute table", () -> {
+            SearchAttributeTable table = instance;
+            Columns columns = table.columns;
+            int filled = 0;
+            if (columns != null) {
+                for (Object[] column : columns.columns) {
+                    if (column != null) filled++;
+                }
+            }
+            TagColumn tags = table.tags;
+            return String.format(Locale.ROOT, "%d entries, %d columns, %d tags", table.size(), filled, tags == null ? 0 : tags.names.length);
+        });
+        for (ArgumentType<?, ?> argumentType : List.of(TextArgumentType.INSTANCE, TooltipArgumentType.INSTANCE)) {
+            RoughlyEnoughItemsCore.PERFORMANCE_LOGGER.statistic("Search Index", argumentType.getName(), () -> {
+                NgramIndex index = instance.getNgramIndex(argumentType);
+                if (index == null) return "not built";
+                return String.format(Locale.ROOT, "%d entries, %d trigrams, %.1f MiB, built in %.1fms", index.size(), index.ngrams(),
+                        index.bytes() / 1048576.0, index.getBuildTime() / 1000000.0);
+            });
+        }
+    }
+    
+    private SearchAttributeTable(List<EntryStack<?>> stacks) {
+        this.stacks = stacks.toArray(new EntryStack[0]);
+        this.indices = new Reference2IntOpenHashMap<>(this.stacks.length);
+        this.indices.defaultReturnValue(-1);
+        for (int i = 0; i < this.stacks.length; i++) {
+            this.indices.putIfAbsent(this.stacks[i], i);
+        }
+    }
+    
+    public static SearchAttributeTable getInstance() {
+        return instance;
+    }
+    
+    /**
+     * Rebuilds the table for the registered entries, the columns are computed when they are first used.
+     *
+     * @param stacks the registered entries
+     */
+    public static void build(List<EntryStack<?>> stacks) {
+        SearchAttributeTable table = new SearchAttributeTable(stacks);
+        instance = table;
+        table.columns();
+    }
+    
+    public int size() {
+        return stacks.length;
+    }
+    
+    /**
+     * Returns the index of the stack in the table, by identity.
+     *
+     * @param stack the stack
+     * @return the index of the stack, or {@code -1} if the stack is not in the table
+     */
+    public int indexOf(EntryStack<?> stack) {
+        return indices.getInt(stack);
+    }
+    
+    public EntryStack<?> getStack(int index) {
+        return stacks[index];
+    }
+    
+    public <R> R get(ArgumentType<?, R> argumentType, int index) {
+        Object[] column = columns().column(argumentType, stacks.length);
+        Object value = column[index];
+        if (value == null) {
+            value = intern(argumentType.cacheData(stacks[index]));
+            column[index] = value;
+        }
+        return (R) value;
+    }
+    
+    /**
+     * Returns the value of the column if it is already computed for the language, without computing it.
+     */
+    @Nullable
+    public Object getComputed(ArgumentType<?, ?> argumentType, int index, String language) {
+        Columns columns = this.columns;
+        if (columns == null || !columns.language.equals(language)) return null;
+        Object[] column = columns.columns[argumentType.getIndex()];
+        return column == null ? null : column[index];
+    }
+    
+    /**
+     * Sets the value of the column if it is not computed yet, this is a no-op if the language has changed since.
+     */
+    public void setComputed(ArgumentType<?, ?> argumentType, int index, String language, Object value) {
+        Columns columns = this.columns;
+        if (columns == null || !columns.language.equals(language)) return;
+        Object[] column = columns.column(argumentType, stacks.length);
+        if (column[index] == null) {
+            column[index] = intern(value);
+        }
+    }
+    
+    /**
+     * Returns the trigram index of the column, or {@code null} if it is not built for the current language.
+     */
+    @Nullable
+    public NgramIndex getNgramIndex(ArgumentType<?, ?> argumentType) {
+        if (!((ConfigObjectImpl) ConfigObject.getInstance()).isNgramSearchIndexEnabled()) return null;
+        return columns().ngrams[argumentType.getIndex()];
+    }
+    
+    /**
+     * Builds the trigram index of the column from the values computed so far, entries computed later are always candidates.
+     * This is a no-op if the index is already built for the current language.
+     */
+    public void buildNgramIndex(ArgumentType<?, ?> argumentType) {
+        if (!((ConfigObjectImpl) ConfigObject.getInstance()).isNgramSearchIndexEnabled()) return;
+        Columns columns = columns();
+        int index = argumentType.getIndex();
+        if (columns.ngrams[index] != null) return;
+        synchronized (columns) {
+            if (columns.ngrams[index] == null) {
+                columns.ngrams[index] = NgramIndex.build(columns.column(argumentType, stacks.length));
+            }
+        }
+    }
+    
+    public TagColumn getTags() {
+        TagColumn tags = this.tags;
+        if (tags == null) {
+            synchronized (this) {
+                tags = this.tags;
+                if (tags == null) {
+                    this.tags = tags = new TagColumn(stacks);
+                }
+            }
+        }
+        return tags;
+    }
+    
+    /**
+     * Returns whether any column or the tags have been computed since the table was built or last cleared.
+     */
+    public boolean hasComputedData() {
+        if (tags != null) return true;
+        Columns columns = this.columns;
+        if (columns == null) return false;
+        for (Object[] column : columns.columns) {
+            if (column != null) return true;
+        }
+        return false;
+    }
+    
+    public void clear() {
+        this.columns = null;
+        this.tags = null;
+    }
+    
+    private Columns columns() {
+        String language = Minecraft.getInstance().options.languageCode;
+        Columns columns = this.columns;
+        if (columns == null || !columns.language.equals(language)) {
+            synchronized (this) {
+                columns = this.columns;
+                if (columns == null || !columns.language.equals(language)) {
+                    this.columns = columns = new Columns(language, new Object[ArgumentTypesRegistry.ARGUMENT_TYPE_LIST.size()][],
+                            new NgramIndex[ArgumentTypesRegistry.ARGUMENT_TYPE_LIST.size()]);
+                    SearchDataDiskCache.loadAsync(this);
+                }
+            }
+        }
+        return columns;
+    }
+    
+    private Object intern(Object value) {
+        if (value instanceof String string) {
+            return strings.intern(string);
+        } else if (value instanceof String[] array) {
+            for (int i = 0; i < array.length; i++) {
+                array[i] = strings.intern(array[i]);
+            }
+        }
+        return value;
+    }
+    
+    private record Columns(String language, Object[][] columns, NgramIndex[] ngrams) {
+        private Object[] column(ArgumentType<?, ?> argumentType, int size) {
+            int index = argumentType.getIndex();
+            Object[] column = columns[index];
+            if (column == null) {
+                synchronized (this) {
+                    column = columns[index];
+                    if (column == null) {
+                        columns[index] = column = new Object[size];
+                    }
+                }
+            }
+            return column;
+        }
+    }
+    
+    public static class TagColumn {
+        private final String[] names;
+        private final BitSet[] entries;
+        private final Map<String, BitSet> matching = new ConcurrentHashMap<>();
+        
+        private TagColumn(EntryStack<?>[] stacks) {
+            Object2IntMap<String> ids = new Object2IntOpenHashMap<>();
+            ids.defaultReturnValue(-1);
+            List<BitSet> entries = new ArrayList<>();
+            for (int i = 0; i < stacks.length; i++) {
+                for (String tag : TagArgumentType.INSTANCE.cacheData(stacks[i])) {
+                    int id = ids.getInt(tag);
+                    if (id == -1) {
+                        ids.put(tag, id = entries.size());
+                        entries.add(new BitSet(stacks.length));
+                    }
+                    entries.get(id).set(i);
+                }
+            }
+            this.names = new String[ids.size()];
+            for (Object2IntMap.Entry<String> entry : ids.object2IntEntrySet()) {
+                this.names[entry.getIntValue()] = entry.getKey();
+            }
+            this.entries = entries.toArray(new BitSet[0]);
+        }
+        
+        /**
+         * Returns whether the entry at {@code index} has any tag containing {@code searchText}.
+         */
+        public boolean matches(int index, String searchText) {
+            BitSet bitSet = matching.get(searchText);
+            if (bitSet == null) {
+                bitSet = new BitSet();
+                for (int i = 0; i < names.length; i++) {
+                    if (!names[i].isEmpty() && names[i].contains(searchText)) {
+                        bitSet.or(entries[i]);
+                    }
+                }
+                if (matching.size() >= MAX_TAG_QUERIES) {
+                    matching.clear();
+                }
+                matching.put(searchText, bitSet);
+            }
+            return bitSet.get(index);
+        }
+    }
+}
@@ -0,0 +1,287 @@
+/*
+ * This file is licensed under the MIT License, part of Roughly Enough Items.
+ * Copyright (c) 2018, 2019, 2020, 2021, 2022 shedaniel
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package me.shedaniel.rei.impl.client.search.argument;
+
+import it.unimi.dsi.fastutil.HashCommon;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.objects.ObjectIterator;
+import me.shedaniel.rei.RoughlyEnoughItemsCore;
+import me.shedaniel.rei.impl.client.search.argument.type.ArgumentType;
+import me.shedaniel.rei.impl.client.search.argument.type.ArgumentTypesRegistry;
+import net.fabricmc.api.EnvType;
+import net.fabricmc.api.Environment;
+import net.minecraft.client.Minecraft;
+import org.jetbrains.annotations.ApiStatus;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Cache of the {@link ArgumentType#cacheData(me.shedaniel.rei.api.common.entry.EntryStack)} data, keyed by the exact hash of the stack.
+ * <p>
+ * Each language keeps its own generation, so switching back to a recent language does not recompute everything.
+ * Each argument type is split into stripes with their own lock and memory budget, entries are evicted from a stripe once it exceeds its budget.
+ */
+@ApiStatus.Internal
+@Environment(EnvType.CLIENT)
+public class SearchCache {
+    private static final int MAX_GENERATIONS = 3;
+    private static final int STRIPES = 16;
+    private static final long MAX_BYTES_PER_TYPE = 64L * 1024 * 1024;
+    private static final long MAX_BYTES_PER_STRIPE = MAX_BYTES_PER_TYPE / STRIPES;
+    private static final long ENTRY_OVERHEAD = 16;
+    private final Map<String, Generation> generations = new LinkedHashMap<>(MAX_GENERATIONS + 1, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Generation> eldest) {
+            return size() > MAX_GENERATIONS;
+        }
+    };
+    private final TypeStatistics[] statistics;
+    private volatile Generation current;
+    
+    public SearchCache() {
+        this.statistics = new TypeStatistics[ArgumentTypesRegistry.ARGUMENT_TYPE_LIST.size()];
+        for (int i = 0; i < statistics.length; i++) {
+            statistics[i] = new TypeStatistics();
+        }
+        for (ArgumentType<?, ?> type : ArgumentTypesRegistry.ARGUMENT_TYPE_LIST) {
+            RoughlyEnoughItemsCore.PERFORMANCE_LOGGER.statistic("Search Cache", type.getName(), () -> describe(type));
+        }
+        RoughlyEnoughItemsCore.PERFORMANCE_LOGGER.statistic("Search Cache", "languages", () -> {
+            synchronized (generations) {
+                return String.join(", ", generations.keySet());
+            }
+        });
+    }
+    
+    /**
+     * Returns the cache of the argument type, for the current language.
+     *
+     * @param argumentType the argument type
+     * @return the cache of the argument type
+     */
+    public TypeCache get(ArgumentType<?, ?> argumentType) {
+        return current().types[argumentType.getIndex()];
+    }
+    
+    private Generation current() {
+        String language = Minecraft.getInstance().options.languageCode;
+        Generation generation = current;
+        if (generation != null && generation.language.equals(language)) {
+            return generation;
+        }
+        synchronized (generations) {
+            generation = generations.computeIfAbsent(language, Generation::new);
+            current = generation;
+            return generation;
+        }
+    }
+    
+    /**
+     * Clears the cache, including the columns of the {@link SearchAttributeTable}.
+     */
+    public void clear() {
+        synchronized (generations) {
+            generations.clear();
+            current = null;
+        }
+        SearchAttributeTable.getInstance().clear();
+    }
+    
+    public boolean isEmpty() {
+        synchronized (generations) {
+            for (Generation generation : generations.values()) {
+                for (TypeCache cache : generation.types) {
+                    if (cache.size() > 0) {
+                        return false;
+                    }
+                }
+            }
+            return true;
+        }
+    }
+    
+    private String describe(ArgumentType<?, ?> argumentType) {
+        TypeStatistics statistics = this.statistics[argumentType.getIndex()];
+        Generation generation = current;
+        TypeCache cache = generation == null ? null : generation.types[argumentType.getIndex()];
+        long hits = statistics.hits.sum();
+        long misses = statistics.misses.sum();
+        return String.format(Locale.ROOT, "%d entries, %.2f MiB, %.1f%% hits, %d evicted",
+                cache == null ? 0 : cache.size(), cache == null ? 0 : cache.bytes() / 1024.0 / 1024.0,
+                hits + misses == 0 ? 0 : hits * 100.0 / (hits + misses), statistics.evictions.sum());
+    }
+    
+    private static long estimateSize(Object value) {
+        if (value instanceof String string) {
+            return 40 + string.length();
+        } else if (value instanceof String[] strings) {
+            long size = 16 + 4L * strings.length;
+            for (String string : strings) {
+                size += estimateSize(string);
+            }
+            return size;
+        }
+        return value == null ? 0 : 32;
+    }
+    
+    private class Generation {
+        private final String language;
+        private final TypeCache[] types;
+        
+        private Generation(String language) {
+            this.language = language;
+            this.types = new TypeCache[statistics.length];
+            for (int i = 0; i < types.length; i++) {
+                types[i] = new TypeCache(statistics[i]);
+            }
+        }
+    }
+    
+    private static class TypeStatistics {
+        private final LongAdder hits = new LongAdder();
+        private final LongAdder misses = new LongAdder();
+        private final LongAdder evictions = new LongAdder();
+    }
+    
+    public static class TypeCache {
+        private final TypeStatistics statistics;
+        private final Long2ObjectOpenHashMap<Object>[] maps = new Long2ObjectOpenHashMap[STRIPES];
+        private final ReadWriteLock[] locks = new ReadWriteLock[STRIPES];
+        private final long[] bytes = new long[STRIPES];
+        
+        private TypeCache(TypeStatistics statistics) {
+            this.statistics = statistics;
+            for (int i = 0; i < STRIPES; i++) {
+                maps[i] = new Long2ObjectOpenHashMap<>();
+                locks[i] = new ReentrantReadWriteLock();
+            }
+        }
+        
+        private static int stripe(long hash) {
+            return (int) HashCommon.mix(hash) & (STRIPES - 1);
+        }
+        
+        public Object get(long hash) {
+            int stripe = stripe(hash);
+            Object value;
+            locks[stripe].readLock().lock();
+            try {
+                value = maps[stripe].get(hash);
+            } finally {
+                locks[stripe].readLock().unlock();
+            }
+            if (value == null) {
+                statistics.misses.increment();
+            } else {
+                statistics.hits.increment();
+            }
+            return value;
+        }
+        
+        /**
+         * Returns whether the hash is cached, without affecting the statistics.
+         */
+        public boolean contains(long hash) {
+            int stripe = stripe(hash);
+            locks[stripe].readLock().lock();
+            try {
+                return maps[stripe].containsKey(hash);
+            } finally {
+                locks[stripe].readLock().unlock();
+            }
+        }
+        
+        public void put(long hash, Object value) {
+            int stripe = stripe(hash);
+            locks[stripe].writeLock().lock();
+            try {
+                putUnsafe(stripe, hash, value);
+                evictIfNeeded(stripe);
+            } finally {
+                locks[stripe].writeLock().unlock();
+            }
+        }
+        
+        public void putAll(Long2ObjectMap<Object> values) {
+            for (Long2ObjectMap.Entry<Object> entry : values.long2ObjectEntrySet()) {
+                put(entry.getLongKey(), entry.getValue());
+            }
+        }
+        
+        private void putUnsafe(int stripe, long hash, Object value) {
+            Object previous = maps[stripe].put(hash, value);
+            if (previous == null) {
+                bytes[stripe] += ENTRY_OVERHEAD;
+            } else {
+                bytes[stripe] -= estimateSize(previous);
+            }
+            bytes[stripe] += estimateSize(value);
+        }
+        
+        private void evictIfNeeded(int stripe) {
+            if (bytes[stripe] <= MAX_BYTES_PER_STRIPE) return;
+            // evict in slot order until we are back at three quarters of the budget, which is close to random
+            ObjectIterator<Long2ObjectMap.Entry<Object>> iterator = maps[stripe].long2ObjectEntrySet().fastIterator();
+            while (bytes[stripe] > MAX_BYTES_PER_STRIPE / 4 * 3 && iterator.hasNext()) {
+                Long2ObjectMap.Entry<Object> entry = iterator.next();
+                bytes[stripe] -= ENTRY_OVERHEAD + estimateSize(entry.getValue());
+                iterator.remove();
+                statistics.evictions.increment();
+            }
+        }
+        
+        public int size() {
+            int size = 0;
+            for (int i = 0; i < STRIPES; i++) {
+                locks[i].readLock().lock();
+                try {
+                    size += maps[i].size();
+                } finally {
+                    locks[i].readLock().unlock();
+                }
+            }
+            return size;
+        }
+        
+        public long bytes() {
+            long bytes = 0;
+            for (int i = 0; i < STRIPES; i++) {
+                locks[i].readLock().lock();
+                try {
+                    bytes += this.bytes[i];
+                } finally {
+                    locks[i].readLock().unlock();
+                }
+            }
+            return bytes;
+        }
+    }
+}
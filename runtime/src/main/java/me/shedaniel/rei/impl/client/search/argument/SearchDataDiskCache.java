@@ -0,0 +1,282 @@
+/*
+ * This file is licensed under the MIT License, part of Roughly Enough Items.
+ * Copyright (c) 2018, 2019, 2020, 2021, 2022 shedaniel
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package me.shedaniel.rei.impl.client.search.argument;
+
+import com.google.common.base.Stopwatch;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import dev.architectury.platform.Mod;
+import dev.architectury.platform.Platform;
+import me.shedaniel.rei.RoughlyEnoughItemsCore;
+import me.shedaniel.rei.api.client.config.ConfigObject;
+import me.shedaniel.rei.api.common.entry.EntryStack;
+import me.shedaniel.rei.impl.client.config.ConfigObjectImpl;
+import me.shedaniel.rei.impl.client.search.argument.type.*;
+import net.fabricmc.api.EnvType;
+import net.fabricmc.api.Environment;
+import net.minecraft.client.Minecraft;
+import net.minecraft.nbt.CompoundTag;
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
+
+/**
+ * Persists the string columns of the {@link SearchAttributeTable} in the game directory, so the first search of a session
+ * does not compute the names and tooltips of every entry again.
+ * <p>
+ * A file is keyed by a fingerprint of the mods and their versions, the language and the selected resource packs.
+ * Entries are stored by their index in the table, and each entry is only restored if its identifier and serialized form still match.
+ * Tags are not persisted since they depend on the server.
+ */
+@ApiStatus.Internal
+@Environment(EnvType.CLIENT)
+public class SearchDataDiskCache {
+    private static final int MAGIC = 0x52454953;
+    private static final int VERSION = 2;
+    private static final String PREFIX = "search-";
+    private static final String SUFFIX = ".bin";
+    private static final List<ArgumentType<?, ?>> TYPES = List.of(TextArgumentType.INSTANCE, RegexArgumentType.INSTANCE,
+            TooltipArgumentType.INSTANCE, IdentifierArgumentType.INSTANCE);
+    @Nullable
+    private static volatile SearchAttributeTable persistedTable;
+    private static volatile long persistedFingerprint;
+    private static volatile int persistedColumns;
+    
+    private static boolean isEnabled() {
+        return ((ConfigObjectImpl) ConfigObject.getInstance()).isPersistentSearchCacheEnabled();
+    }
+    
+    private static Path getDirectory() {
+        return Platform.getGameFolder().resolve(".cache/roughlyenoughitems");
+    }
+    
+    private static Path getFile(long fingerprint) {
+        return getDirectory().resolve(PREFIX + Long.toHexString(fingerprint) + SUFFIX);
+    }
+    
+    private static long fingerprint(SearchAttributeTable table, String language) {
+        Hasher hasher = Hashing.murmur3_128().newHasher();
+        hasher.putInt(VERSION);
+        hasher.putString(language, StandardCharsets.UTF_8);
+        hasher.putInt(table.size());
+        hasher.putBoolean(Minecraft.getInstance().options.advancedItemTooltips);
+        List<String> mods = new ArrayList<>();
+        for (Mod mod : Platform.getMods()) {
+            mods.add(mod.getModId() + "@" + mod.getVersion());
+        }
+        Collections.sort(mods);
+        for (String mod : mods) {
+            hasher.putString(mod, StandardCharsets.UTF_8).putByte((byte) 0);
+        }
+        // the order of the packs matters, later packs override earlier ones
+        for (String pack : Minecraft.getInstance().getResourcePackRepository().getSelectedIds()) {
+            hasher.putString(pack, StandardCharsets.UTF_8).putByte((byte) 1);
+        }
+        return hasher.hash().asLong();
+    }
+    
+    /**
+     * Returns the key an entry is validated with, variants sharing an identifier are told apart by their serialized form.
+     *
+     * @return the key, or {@code null} if the entry cannot be serialized, in which case it is never restored
+     */
+    @Nullable
+    private static String keyOf(EntryStack<?> stack) {
+        try {
+            if (!stack.supportSaving()) return null;
+            CompoundTag tag = stack.save();
+            if (tag == null) return null;
+            return stack.getType().getId() + "/" + stack.getIdentifier() + "#" + Hashing.murmur3_128().hashString(tag.toString(), StandardCharsets.UTF_8);
+        } catch (Throwable throwable) {
+            return null;
+        }
+    }
+    
+    /**
+     * Fills the table from the cache file in the background, if the file matches the current session.
+     *
+     * @param table the table to fill
+     */
+    public static void loadAsync(SearchAttributeTable table) {
+        if (table.size() == 0 || !isEnabled()) return;
+        String language = Minecraft.getInstance().options.languageCode;
+        long fingerprint = fingerprint(table, language);
+        CompletableFuture.runAsync(() -> {
+            try {
+                load(table, language, fingerprint);
+            } catch (Throwable throwable) {
+                RoughlyEnoughItemsCore.LOGGER.warn("Failed to load the search cache: " + throwable);
+            }
+        });
+    }
+    
+    private static void load(SearchAttributeTable table, String language, long fingerprint) throws IOException {
+        Path file = getFile(fingerprint);
+        if (!Files.isRegularFile(file)) return;
+        Stopwatch stopwatch = Stopwatch.createStarted();
+        int restored = 0;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION || buffer.getLong() != fingerprint || buffer.getInt() != table.size()) {
+                return;
+            }
+            ArgumentType<?, ?>[] types = new ArgumentType[buffer.getInt()];
+            for (int i = 0; i < types.length; i++) {
+                types[i] = ArgumentTypesRegistry.ARGUMENT_TYPES.get(readString(buffer));
+            }
+            for (int index = 0; index < table.size(); index++) {
+                String persistedKey = readString(buffer);
+                String key = keyOf(table.getStack(index));
+                boolean matches = key != null && key.equals(persistedKey);
+                for (ArgumentType<?, ?> type : types) {
+                    String value = readString(buffer);
+                    if (matches && value != null && type != null) {
+                        table.setComputed(type, index, language, value);
+                    }
+                }
+                if (matches) restored++;
+            }
+        }
+        if (persistedTable != table || persistedFingerprint != fingerprint) {
+            persistedTable = table;
+            persistedFingerprint = fingerprint;
+            persistedColumns = 0;
+        }
+        persistedColumns |= completeColumns(table, language);
+        RoughlyEnoughItemsCore.LOGGER.debug("Restored search data of %d/%d entries in %s.", restored, table.size(), stopwatch.stop().toString());
+    }
+    
+    /**
+     * Writes the computed string columns of the table in the background,
+     * this is a no-op if every complete column was already restored from or written to the cache file.
+     *
+     * @param table the table to write
+     */
+    public static void saveAsync(SearchAttributeTable table) {
+        if (table.size() == 0 || !isEnabled()) return;
+        String language = Minecraft.getInstance().options.languageCode;
+        long fingerprint = fingerprint(table, language);
+        int columns = completeColumns(table, language);
+        if (persistedTable == table && persistedFingerprint == fingerprint) {
+            if ((columns & ~persistedColumns) == 0) return;
+        } else {
+            persistedTable = table;
+            persistedFingerprint = fingerprint;
+            persistedColumns = 0;
+        }
+        persistedColumns |= columns;
+        CompletableFuture.runAsync(() -> {
+            try {
+                save(table, language, fingerprint);
+            } catch (Throwable throwable) {
+                RoughlyEnoughItemsCore.LOGGER.warn("Failed to save the search cache: " + throwable);
+            }
+        });
+    }
+    
+    private static void save(SearchAttributeTable table, String language, long fingerprint) throws IOException {
+        Stopwatch stopwatch = Stopwatch.createStarted();
+        Path directory = getDirectory();
+        Files.createDirectories(directory);
+        Path file = getFile(fingerprint);
+        Path temp = Files.createTempFile(directory, PREFIX, ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeLong(fingerprint);
+                out.writeInt(table.size());
+                out.writeInt(TYPES.size());
+                for (ArgumentType<?, ?> type : TYPES) {
+                    writeString(out, type.getName());
+                }
+                for (int index = 0; index < table.size(); index++) {
+                    writeString(out, keyOf(table.getStack(index)));
+                    for (ArgumentType<?, ?> type : TYPES) {
+                        writeString(out, table.getComputed(type, index, language) instanceof String value ? value : null);
+                    }
+                }
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+        // files of other sessions are stale, a file still mapped by a load may fail to delete and is left for the next save
+        try (Stream<Path> files = Files.list(directory)) {
+            files.filter(path -> !path.equals(file))
+                    .filter(path -> path.getFileName().toString().startsWith(PREFIX))
+                    .forEach(path -> {
+                        try {
+                            Files.deleteIfExists(path);
+                        } catch (IOException ignored) {
+                        }
+                    });
+        }
+        RoughlyEnoughItemsCore.LOGGER.debug("Saved search data of %d entries in %s.", table.size(), stopwatch.stop().toString());
+    }
+    
+    /**
+     * Returns the bitmask of the persisted columns that are computed for every entry.
+     */
+    private static int completeColumns(SearchAttributeTable table, String language) {
+        int columns = 0;
+        for (int i = 0; i < TYPES.size(); i++) {
+            boolean complete = true;
+            for (int index = 0; index < table.size() && complete; index++) {
+                complete = table.getComputed(TYPES.get(i), index, language) != null;
+            }
+            if (complete) columns |= 1 << i;
+        }
+        return columns;
+    }
+    
+    @Nullable
+    private static String readString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0) return null;
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+    
+    private static void writeString(DataOutputStream out, @Nullable String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+        } else {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+    }
+}
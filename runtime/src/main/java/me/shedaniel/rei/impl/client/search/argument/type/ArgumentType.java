@@ -25,6 +25,8 @@ package me.shedaniel.rei.impl.client.search.argument.type;
 
 import me.shedaniel.rei.api.client.gui.config.SearchMode;
 import me.shedaniel.rei.api.common.entry.EntryStack;
+import me.shedaniel.rei.impl.client.search.argument.NgramIndex;
+import me.shedaniel.rei.impl.client.search.argument.SearchAttributeTable;
 import me.shedaniel.rei.impl.client.search.result.ArgumentApplicableResult;
 import net.fabricmc.api.EnvType;
 import net.fabricmc.api.Environment;
@@ -32,6 +34,8 @@ import net.minecraft.network.chat.Style;
 import org.jetbrains.annotations.ApiStatus;
 import org.jetbrains.annotations.Nullable;
 
+import java.util.BitSet;
+
 @ApiStatus.Internal
 @Environment(EnvType.CLIENT)
 public abstract class ArgumentType<T, R> {
@@ -88,6 +92,73 @@ public abstract class ArgumentType<T, R> {
     
     public abstract T prepareSearchFilter(String searchText);
     
+    /**
+     * Matches the entry at {@code index} of the {@link SearchAttributeTable}, types may override this to match against their own columns.
+     */
+    public boolean matches(SearchAttributeTable table, int index, EntryStack<?> stack, String searchText, T filterData) {
+        return matches(table.get(this, index), stack, searchText, filterData);
+    }
+    
+    /**
+     * Computes the data of the entry at {@code index} of the {@link SearchAttributeTable} ahead of the search.
+     */
+    public void prepare(SearchAttributeTable table, int index) {
+        table.get(this, index);
+    }
+    
+    /**
+     * Computes the data of the stack from a search worker, types whose data is not always safe to compute
+     * off the client thread return {@code null} on failure, the stack is then prepared on the client thread.
+     */
+    @Nullable
+    public R tryCacheData(EntryStack<?> stack) {
+        return cacheData(stack);
+    }
+    
+    /**
+     * Computes the data of the entry at {@code index} from a search worker, like {@link #prepare(SearchAttributeTable, int)}.
+     *
+     * @return whether the data was computed, {@code false} if the entry has to be prepared on the client thread
+     */
+    public boolean tryPrepare(SearchAttributeTable table, int index) {
+        prepare(table, index);
+        return true;
+    }
+    
+    /**
+     * Returns whether the column of this type in the {@link SearchAttributeTable} is a string column
+     * that should be indexed by trigrams, this requires {@link #matches} to be a substring match.
+     */
+    public boolean isNgramIndexed() {
+        return false;
+    }
+    
+    /**
+     * Returns the entries of the {@link SearchAttributeTable} that may match {@code searchText}, the returned bitset must not be modified.
+     *
+     * @param table      the attribute table
+     * @param searchText the search text
+     * @return the candidates, or {@code null} if every entry may match
+     */
+    @Nullable
+    public BitSet getCandidates(SearchAttributeTable table, String searchText) {
+        if (!isNgramIndexed()) return null;
+        NgramIndex index = table.getNgramIndex(this);
+        return index == null ? null : index.candidates(searchText);
+    }
+    
+    /**
+     * Returns whether every stack matched by {@code searchText} is also matched by {@code previousSearchText},
+     * used to filter the previous search results instead of every stack.
+     *
+     * @param searchText         the new search text
+     * @param previousSearchText the previous search text
+     * @return whether {@code searchText} narrows {@code previousSearchText}
+     */
+    public boolean narrows(String searchText, String previousSearchText) {
+        return false;
+    }
+    
     public int getIndex() {
         if (index >= 0) return index;
         return index = ArgumentTypesRegistry.ARGUMENT_TYPE_LIST.indexOf(this);
@@ -85,6 +85,11 @@ public final class IdentifierArgumentType extends ArgumentType<Unit, String> {
         return Unit.INSTANCE;
     }
     
+    @Override
+    public boolean narrows(String searchText, String previousSearchText) {
+        return searchText.contains(previousSearchText);
+    }
+    
     private IdentifierArgumentType() {
     }
 }
@@ -83,6 +83,11 @@ public final class ModArgumentType extends ArgumentType<Unit, ModArgumentType.@N
         return Unit.INSTANCE;
     }
     
+    @Override
+    public boolean narrows(String searchText, String previousSearchText) {
+        return searchText.contains(previousSearchText);
+    }
+    
     @Override
     public Style getHighlightedStyle() {
         return STYLE;
@@ -26,6 +26,7 @@ package me.shedaniel.rei.impl.client.search.argument.type;
 import me.shedaniel.rei.api.client.config.ConfigObject;
 import me.shedaniel.rei.api.client.gui.config.SearchMode;
 import me.shedaniel.rei.api.common.entry.EntryStack;
+import me.shedaniel.rei.impl.client.search.argument.SearchAttributeTable;
 import net.fabricmc.api.EnvType;
 import net.fabricmc.api.Environment;
 import net.minecraft.network.chat.Style;
@@ -82,11 +83,26 @@ public final class TagArgumentType extends ArgumentType<Unit, String[]> {
         return false;
     }
     
+    @Override
+    public boolean matches(SearchAttributeTable table, int index, EntryStack<?> stack, String searchText, Unit filterData) {
+        return table.getTags().matches(index, searchText);
+    }
+    
+    @Override
+    public void prepare(SearchAttributeTable table, int index) {
+        table.getTags();
+    }
+    
     @Override
     public Unit prepareSearchFilter(String searchText) {
         return Unit.INSTANCE;
     }
     
+    @Override
+    public boolean narrows(String searchText, String previousSearchText) {
+        return searchText.contains(previousSearchText);
+    }
+    
     private static String toString(TagKey<?> tagKey) {
         return Objects.toString(tagKey.location());
     }
@@ -69,6 +69,16 @@ public final class TextArgumentType extends ArgumentType<Unit, String> {
         return null;
     }
     
+    @Override
+    public boolean isNgramIndexed() {
+        return true;
+    }
+    
+    @Override
+    public boolean narrows(String searchText, String previousSearchText) {
+        return searchText.contains(previousSearchText);
+    }
+    
     private TextArgumentType() {
     }
 }
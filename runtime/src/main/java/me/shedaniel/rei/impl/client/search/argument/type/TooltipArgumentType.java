@@ -28,8 +28,10 @@ import me.shedaniel.rei.api.client.config.ConfigObject;
 import me.shedaniel.rei.api.client.gui.config.SearchMode;
 import me.shedaniel.rei.api.client.gui.widgets.Tooltip;
 import me.shedaniel.rei.api.common.entry.EntryStack;
+import me.shedaniel.rei.impl.client.search.argument.SearchAttributeTable;
 import net.fabricmc.api.EnvType;
 import net.fabricmc.api.Environment;
+import net.minecraft.client.Minecraft;
 import net.minecraft.network.chat.Style;
 import net.minecraft.network.chat.TextColor;
 import net.minecraft.util.Unit;
@@ -70,9 +72,25 @@ public final class TooltipArgumentType extends ArgumentType<Unit, String> {
     
     @Override
     public String cacheData(EntryStack<?> stack) {
-        String tooltip = tryGetEntryStackTooltip(stack, 0);
-        if (tooltip == null) return INVALID;
-        return tooltip.toLowerCase(Locale.ROOT);
+        String tooltip = tryCacheData(stack);
+        return tooltip == null ? INVALID : tooltip;
+    }
+    
+    @Override
+    @Nullable
+    public String tryCacheData(EntryStack<?> stack) {
+        String tooltip = tryGetEntryStackTooltip(stack);
+        return tooltip == null ? null : tooltip.toLowerCase(Locale.ROOT);
+    }
+    
+    @Override
+    public boolean tryPrepare(SearchAttributeTable table, int index) {
+        String language = Minecraft.getInstance().options.languageCode;
+        if (table.getComputed(this, index, language) != null) return true;
+        String tooltip = tryCacheData(table.getStack(index));
+        if (tooltip == null) return false;
+        table.setComputed(this, index, language, tooltip);
+        return true;
     }
     
     @Override
@@ -82,8 +100,12 @@ public final class TooltipArgumentType extends ArgumentType<Unit, String> {
         return tooltip.contains(searchText);
     }
     
+    /**
+     * Returns the text of the tooltip of the stack, tooltip code of some items is not thread-safe
+     * and throws a {@link ConcurrentModificationException} off the client thread, {@code null} is returned in that case.
+     */
     @Nullable
-    public static String tryGetEntryStackTooltip(EntryStack<?> stack, int attempt) {
+    public static String tryGetEntryStackTooltip(EntryStack<?> stack) {
         try {
             Tooltip tooltip = stack.getTooltip(new Point(), false);
             if (tooltip != null) {
@@ -97,15 +119,8 @@ public final class TooltipArgumentType extends ArgumentType<Unit, String> {
             }
             return "";
         } catch (Throwable throwable) {
-            Throwable temp = throwable;
-            while (temp != null) {
-                temp = temp.getCause();
+            for (Throwable temp = throwable; temp != null; temp = temp.getCause()) {
                 if (temp instanceof ConcurrentModificationException) {
-                    // yes, this is a hack
-                    if (attempt < 10) {
-                        return tryGetEntryStackTooltip(stack, attempt + 1);
-                    }
-                    
                     return null;
                 }
             }
@@ -119,6 +134,16 @@ public final class TooltipArgumentType extends ArgumentType<Unit, String> {
         return Unit.INSTANCE;
     }
     
+    @Override
+    public boolean isNgramIndexed() {
+        return true;
+    }
+    
+    @Override
+    public boolean narrows(String searchText, String previousSearchText) {
+        return searchText.contains(previousSearchText);
+    }
+    
     private TooltipArgumentType() {
     }
 }
@@ -23,13 +23,17 @@
 
 package me.shedaniel.rei.impl.client.subsets;
 
+import com.google.common.collect.ForwardingIterator;
+import com.google.common.collect.ForwardingSet;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
 import me.shedaniel.rei.api.client.plugins.REIClientPlugin;
 import me.shedaniel.rei.api.client.subsets.SubsetsRegistry;
 import me.shedaniel.rei.api.common.entry.EntryStack;
 import me.shedaniel.rei.api.common.registry.ReloadStage;
-import me.shedaniel.rei.api.common.util.CollectionUtils;
+import me.shedaniel.rei.api.common.util.EntryStacks;
 import net.fabricmc.api.EnvType;
 import net.fabricmc.api.Environment;
 import net.minecraft.resources.ResourceLocation;
@@ -42,6 +46,10 @@ import java.util.*;
 @Environment(EnvType.CLIENT)
 public class SubsetsRegistryImpl implements SubsetsRegistry {
     private final Map<String, Set<EntryStack<?>>> paths = Maps.newHashMap();
+    private final PathNode pathTree = new PathNode();
+    // the paths of the entries by their exact hash, rebuilt when entries are removed from a path
+    @Nullable
+    private Long2ObjectMap<List<PathEntry>> pathsByHash = new Long2ObjectOpenHashMap<>();
     
     @Override
     public ReloadStage getStage() {
@@ -56,16 +64,21 @@ public class SubsetsRegistryImpl implements SubsetsRegistry {
     @Override
     public void startReload() {
         paths.clear();
+        pathTree.children.clear();
+        pathsByHash = new Long2ObjectOpenHashMap<>();
     }
     
     @Override
     public List<String> getEntryPaths(EntryStack<?> stack) {
+        List<PathEntry> entries = getPathsByHash().get(EntryStacks.hashExact(stack));
+        if (entries == null) return Collections.emptyList();
         List<String> strings = null;
-        for (Map.Entry<String, Set<EntryStack<?>>> entry : paths.entrySet()) {
-            if (CollectionUtils.findFirstOrNullEqualsExact(entry.getValue(), stack) != null) {
+        for (PathEntry entry : entries) {
+            if (EntryStacks.equalsExact(entry.stack(), stack) && paths.containsKey(entry.path())) {
                 if (strings == null)
                     strings = new ArrayList<>();
-                strings.add(entry.getKey());
+                if (!strings.contains(entry.path()))
+                    strings.add(entry.path());
             }
         }
         return strings == null ? Collections.emptyList() : strings;
@@ -99,14 +112,51 @@ public class SubsetsRegistryImpl implements SubsetsRegistry {
     
     @Override
     public Set<EntryStack<?>> getOrCreatePathEntries(String path) {
-        Set<EntryStack<?>> paths = getPathEntries(path);
+        Set<EntryStack<?>> paths = this.paths.get(path);
         if (paths == null) {
-            this.paths.put(path, Sets.newLinkedHashSet());
-            paths = Objects.requireNonNull(getPathEntries(path));
+            paths = getPathEntries(path);
+            if (paths == null) {
+                this.paths.put(path, paths = new PathEntries(path));
+                PathNode node = pathTree;
+                for (String pathSegment : path.split("/")) {
+                    node = node.children.computeIfAbsent(pathSegment, $ -> new PathNode());
+                }
+                node.path = path;
+            }
         }
         return paths;
     }
     
+    /**
+     * Returns the tree of the "/" separated segments of the paths.
+     */
+    public PathNode getPathTree() {
+        return pathTree;
+    }
+    
+    private Long2ObjectMap<List<PathEntry>> getPathsByHash() {
+        Long2ObjectMap<List<PathEntry>> pathsByHash = this.pathsByHash;
+        if (pathsByHash == null) {
+            pathsByHash = new Long2ObjectOpenHashMap<>();
+            for (Map.Entry<String, Set<EntryStack<?>>> entry : paths.entrySet()) {
+                for (EntryStack<?> stack : entry.getValue()) {
+                    index(pathsByHash, entry.getKey(), stack);
+                }
+            }
+            this.pathsByHash = pathsByHash;
+        }
+        return pathsByHash;
+    }
+    
+    private static void index(Long2ObjectMap<List<PathEntry>> pathsByHash, String path, EntryStack<?> stack) {
+        long hash = EntryStacks.hashExact(stack);
+        List<PathEntry> entries = pathsByHash.get(hash);
+        if (entries == null) {
+            pathsByHash.put(hash, entries = new ArrayList<>(1));
+        }
+        entries.add(new PathEntry(path, stack));
+    }
+    
     private boolean isPathValid(String path) {
         String[] pathSegments = path.split("/");
         for (String pathSegment : pathSegments) {
@@ -115,4 +165,98 @@ public class SubsetsRegistryImpl implements SubsetsRegistry {
         }
         return true;
     }
+    
+    public static class PathNode {
+        private final Map<String, PathNode> children = new LinkedHashMap<>();
+        @Nullable
+        private String path;
+        
+        public Map<String, PathNode> getChildren() {
+            return Collections.unmodifiableMap(children);
+        }
+        
+        /**
+         * Returns the path ending at this node, or {@code null} if this node is only a parent of other paths.
+         */
+        @Nullable
+        public String getPath() {
+            return path;
+        }
+    }
+    
+    private record PathEntry(String path, EntryStack<?> stack) {}
+    
+    /**
+     * The entries of a path, additions are indexed as they happen, removals invalidate the index.
+     */
+    private class PathEntries extends ForwardingSet<EntryStack<?>> {
+        private final String path;
+        private final Set<EntryStack<?>> delegate = Sets.newLinkedHashSet();
+        
+        private PathEntries(String path) {
+            this.path = path;
+        }
+        
+        @Override
+        protected Set<EntryStack<?>> delegate() {
+            return delegate;
+        }
+        
+        @Override
+        public boolean add(EntryStack<?> stack) {
+            if (delegate.add(stack)) {
+                if (pathsByHash != null) {
+                    index(pathsByHash, path, stack);
+                }
+                return true;
+            }
+            return false;
+        }
+        
+        @Override
+        public boolean addAll(Collection<? extends EntryStack<?>> collection) {
+            return standardAddAll(collection);
+        }
+        
+        @Override
+        public boolean remove(Object object) {
+            pathsByHash = null;
+            return delegate.remove(object);
+        }
+        
+        @Override
+        public boolean removeAll(Collection<?> collection) {
+            pathsByHash = null;
+            return delegate.removeAll(collection);
+        }
+        
+        @Override
+        public boolean retainAll(Collection<?> collection) {
+            pathsByHash = null;
+            return delegate.retainAll(collection);
+        }
+        
+        @Override
+        public void clear() {
+            pathsByHash = null;
+            delegate.clear();
+        }
+        
+        @Override
+        public Iterator<EntryStack<?>> iterator() {
+            Iterator<EntryStack<?>> iterator = delegate.iterator();
+            return new ForwardingIterator<>() {
+                @Override
+                protected Iterator<EntryStack<?>> delegate() {
+                    return iterator;
+                }
+                
+                @Override
+                public void remove() {
+                    pathsByHash = null;
+                    super.remove();
+                }
+            };
+        }
+    }
 }
@@ -0,0 +1,128 @@
+/*
+ * This file is licensed under the MIT License, part of Roughly Enough Items.
+ * Copyright (c) 2018, 2019, 2020, 2021, 2022 shedaniel
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package me.shedaniel.rei.impl.client.util;
+
+import me.shedaniel.rei.RoughlyEnoughItemsCore;
+import net.fabricmc.api.EnvType;
+import net.fabricmc.api.Environment;
+import net.minecraft.client.Minecraft;
+import org.jetbrains.annotations.ApiStatus;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Runs work that is not safe to run off the client thread, such as the tooltips of some items,
+ * on the client thread in time-sliced batches, one slice is run on every client tick.
+ */
+@ApiStatus.Internal
+@Environment(EnvType.CLIENT)
+public class ClientThreadStage {
+    private static final long SLICE_NANOS = 5_000_000;
+    private static final Queue<Batch> BATCHES = new ConcurrentLinkedQueue<>();
+    
+    /**
+     * Queues the work to run on the client thread, the work is run immediately if this is called from the client thread.
+     *
+     * @param work the work to run
+     * @return the future completed once all the work has run, exceptionally if any of the work failed
+     */
+    public static CompletableFuture<Void> submit(Collection<Runnable> work) {
+        Batch batch = new Batch(work);
+        if (work.isEmpty()) {
+            batch.future().complete(null);
+        } else if (Minecraft.getInstance().isSameThread()) {
+            batch.run(Long.MAX_VALUE);
+        } else {
+            BATCHES.add(batch);
+        }
+        return batch.future();
+    }
+    
+    /**
+     * Queues the work to run on the client thread in the next ticks, even if this is called from the client thread.
+     *
+     * @param work the work to run
+     * @return the future completed once all the work has run, exceptionally if any of the work failed
+     */
+    public static CompletableFuture<Void> schedule(Collection<Runnable> work) {
+        Batch batch = new Batch(work);
+        if (work.isEmpty()) {
+            batch.future().complete(null);
+        } else {
+            BATCHES.add(batch);
+        }
+        return batch.future();
+    }
+    
+    public static void tick() {
+        long deadline = System.nanoTime() + SLICE_NANOS;
+        Batch batch;
+        while ((batch = BATCHES.peek()) != null) {
+            if (!batch.run(deadline)) return;
+            BATCHES.poll();
+        }
+    }
+    
+    private record Batch(Queue<Runnable> work, CompletableFuture<Void> future, List<Throwable> failures) {
+        private Batch(Collection<Runnable> work) {
+            this(new ArrayDeque<>(work), new CompletableFuture<>(), new ArrayList<>());
+        }
+        
+        /**
+         * Runs the work until the deadline, a failing runnable does not stop the rest of the work from running.
+         *
+         * @return whether the batch is done
+         */
+        private boolean run(long deadline) {
+            Runnable runnable;
+            while (System.nanoTime() < deadline && (runnable = work.poll()) != null) {
+                try {
+                    runnable.run();
+                } catch (Throwable throwable) {
+                    RoughlyEnoughItemsCore.LOGGER.error("Failed to run work on the client thread!", throwable);
+                    failures.add(throwable);
+                }
+            }
+            if (work.isEmpty()) {
+                if (failures.isEmpty()) {
+                    future.complete(null);
+                } else {
+                    Throwable failure = failures.get(0);
+                    for (int i = 1; i < failures.size(); i++) {
+                        failure.addSuppressed(failures.get(i));
+                    }
+                    future.completeExceptionally(failure);
+                }
+                return true;
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,161 @@
+/*
+ * This file is licensed under the MIT License, part of Roughly Enough Items.
+ * Copyright (c) 2018, 2019, 2020, 2021, 2022 shedaniel
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package me.shedaniel.rei.impl.client.view;
+
+import me.shedaniel.rei.api.common.display.Display;
+import me.shedaniel.rei.api.common.display.DisplayMerger;
+import me.shedaniel.rei.impl.client.gui.widget.AutoCraftingEvaluator;
+import me.shedaniel.rei.impl.client.util.ClientThreadStage;
+import me.shedaniel.rei.impl.display.DisplaySpec;
+import net.fabricmc.api.EnvType;
+import net.fabricmc.api.Environment;
+import net.minecraft.resources.ResourceLocation;
+import org.jetbrains.annotations.ApiStatus;
+
+import java.lang.ref.WeakReference;
+import java.util.*;
+
+/**
+ * The merged displays of a category, displays that can be merged are grouped when the list is created,
+ * but the auto crafting evaluation that orders them is done lazily in windows.
+ * <p>
+ * A window is evaluated when one of its displays is first accessed, the other windows are evaluated in the background
+ * on the client thread. Within a window, displays that can be crafted come first, then the displays that are applicable,
+ * groups are represented by their best display.
+ */
+@ApiStatus.Internal
+@Environment(EnvType.CLIENT)
+public class MergedDisplayList extends AbstractList<DisplaySpec> implements RandomAccess {
+    private static final int WINDOW_SIZE = 32;
+    private final List<Group> groups;
+    private final BitSet evaluated;
+    
+    public MergedDisplayList(DisplayMerger<Display> merger, List<Display> displays) {
+        Map<Key, Group> groupsByKey = new HashMap<>();
+        this.groups = new ArrayList<>();
+        for (Display display : displays) {
+            Key key = new Key(merger, display);
+            Group group = groupsByKey.get(key);
+            if (group == null) {
+                groupsByKey.put(key, group = new Group());
+                groups.add(group);
+            }
+            group.members.add(display);
+        }
+        int windows = (groups.size() + WINDOW_SIZE - 1) / WINDOW_SIZE;
+        this.evaluated = new BitSet(windows);
+        if (windows > 1) {
+            // the list may be discarded before the background evaluation is done
+            WeakReference<MergedDisplayList> reference = new WeakReference<>(this);
+            List<Runnable> work = new ArrayList<>(windows - 1);
+            for (int window = 1; window < windows; window++) {
+                int index = window;
+                work.add(() -> {
+                    MergedDisplayList list = reference.get();
+                    if (list != null) list.evaluate(index);
+                });
+            }
+            ClientThreadStage.schedule(work);
+        }
+    }
+    
+    @Override
+    public DisplaySpec get(int index) {
+        evaluate(index / WINDOW_SIZE);
+        return groups.get(index);
+    }
+    
+    @Override
+    public int size() {
+        return groups.size();
+    }
+    
+    private void evaluate(int window) {
+        if (evaluated.get(window)) return;
+        evaluated.set(window);
+        List<Group> groups = this.groups.subList(window * WINDOW_SIZE, Math.min(this.groups.size(), (window + 1) * WINDOW_SIZE));
+        for (Group group : groups) {
+            group.evaluate();
+        }
+        // stable, groups of the same rank keep their order
+        groups.sort(Comparator.comparingInt(group -> group.rank));
+    }
+    
+    private record Key(DisplayMerger<Display> merger, Display display) {
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key key)) return false;
+            return merger.canMerge(display, key.display);
+        }
+        
+        @Override
+        public int hashCode() {
+            return merger.hashOf(display);
+        }
+    }
+    
+    private static class Group implements DisplaySpec {
+        private static final int SUCCESSFUL = 0;
+        private static final int APPLICABLE = 1;
+        private static final int OTHER = 2;
+        private final List<Display> members = new ArrayList<>(1);
+        private Display display;
+        private List<ResourceLocation> ids;
+        private int rank = OTHER;
+        
+        private void evaluate() {
+            Display best = null;
+            for (Display member : members) {
+                AutoCraftingEvaluator.AutoCraftingResult result = AutoCraftingEvaluator.evaluateAutoCrafting(false, false, member, null);
+                int rank = result.successful ? SUCCESSFUL : result.hasApplicable ? APPLICABLE : OTHER;
+                if (best == null || rank < this.rank) {
+                    best = member;
+                    this.rank = rank;
+                    if (rank == SUCCESSFUL) break;
+                }
+            }
+            this.display = best;
+        }
+        
+        @Override
+        public Display provideInternalDisplay() {
+            return display;
+        }
+        
+        @Override
+        public Collection<ResourceLocation> provideInternalDisplayIds() {
+            if (ids == null) {
+                ids = new ArrayList<>();
+                display.getDisplayLocation().ifPresent(ids::add);
+                for (Display member : members) {
+                    if (member != display) {
+                        member.getDisplayLocation().ifPresent(ids::add);
+                    }
+                }
+            }
+            return ids;
+        }
+    }
+}
@@ -24,11 +24,8 @@
 package me.shedaniel.rei.impl.client.view;
 
 import com.google.common.base.Stopwatch;
-import com.google.common.collect.Iterables;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
-import it.unimi.dsi.fastutil.longs.Long2LongMap;
-import it.unimi.dsi.fastutil.longs.Long2LongOpenHashMap;
 import me.shedaniel.rei.RoughlyEnoughItemsCore;
 import me.shedaniel.rei.api.client.config.ConfigObject;
 import me.shedaniel.rei.api.client.registry.category.CategoryRegistry;
@@ -42,25 +39,13 @@ import me.shedaniel.rei.api.common.display.Display;
 import me.shedaniel.rei.api.common.display.DisplayMerger;
 import me.shedaniel.rei.api.common.entry.EntryIngredient;
 import me.shedaniel.rei.api.common.entry.EntryStack;
-import me.shedaniel.rei.api.common.entry.comparison.ComparisonContext;
-import me.shedaniel.rei.api.common.entry.type.EntryDefinition;
-import me.shedaniel.rei.api.common.entry.type.VanillaEntryTypes;
 import me.shedaniel.rei.api.common.plugins.PluginManager;
-import me.shedaniel.rei.api.common.transfer.info.MenuInfo;
-import me.shedaniel.rei.api.common.transfer.info.MenuInfoRegistry;
-import me.shedaniel.rei.api.common.transfer.info.MenuSerializationContext;
-import me.shedaniel.rei.api.common.transfer.info.stack.SlotAccessor;
 import me.shedaniel.rei.api.common.util.CollectionUtils;
 import me.shedaniel.rei.api.common.util.EntryIngredients;
 import me.shedaniel.rei.api.common.util.EntryStacks;
-import me.shedaniel.rei.impl.client.gui.craftable.CraftableFilter;
-import me.shedaniel.rei.impl.client.gui.widget.AutoCraftingEvaluator;
+import me.shedaniel.rei.impl.client.gui.craftable.CraftableEntriesTracker;
+import me.shedaniel.rei.impl.client.registry.display.DisplayRegistryImpl;
 import me.shedaniel.rei.impl.display.DisplaySpec;
-import net.minecraft.client.Minecraft;
-import net.minecraft.client.player.LocalPlayer;
-import net.minecraft.resources.ResourceLocation;
-import net.minecraft.world.inventory.AbstractContainerMenu;
-import net.minecraft.world.item.ItemStack;
 import org.jetbrains.annotations.ApiStatus;
 import org.jetbrains.annotations.Nullable;
 
@@ -72,6 +57,7 @@ import java.util.stream.Stream;
 @ApiStatus.Internal
 public class ViewsImpl implements Views {
     private static final ThreadLocal<ViewSearchBuilder> BUILDER = new ThreadLocal<>();
+    private final CraftableEntriesTracker craftableTracker = new CraftableEntriesTracker();
     
     @Nullable
     @Override
@@ -108,6 +94,9 @@ public class ViewsImpl implements Views {
                 .distinct()
                 .collect(Collectors.toList());
         DisplayRegistry displayRegistry = DisplayRegistry.getInstance();
+        // candidates from the inverted index, still verified below, null if we have to scan every display
+        Map<CategoryIdentifier<?>, List<Display>> candidates = displayRegistry instanceof DisplayRegistryImpl ?
+                ((DisplayRegistryImpl) displayRegistry).getIndex().findCandidates(recipesForStacks, usagesForStacks) : null;
         
         Map<DisplayCategory<?>, List<Display>> result = Maps.newLinkedHashMap();
         for (CategoryRegistry.CategoryConfiguration<?> categoryConfiguration : CategoryRegistry.getInstance()) {
@@ -129,7 +118,9 @@ public class ViewsImpl implements Views {
                 }
                 continue;
             }
-            for (Display display : allRecipesFromCategory) {
+            List<Display> candidatesFromCategory = candidates == null ? allRecipesFromCategory
+                    : candidates.getOrDefault(categoryId, Collections.emptyList());
+            for (Display display : candidatesFromCategory) {
                 if (processingVisibilityHandlers && !displayRegistry.isDisplayVisible(display)) continue;
                 if (!recipesForStacks.isEmpty()) {
                     if (isRecipesFor(recipesForStacks, display)) {
@@ -195,65 +186,7 @@ public class ViewsImpl implements Views {
                 DisplayMerger<Display> merger = (DisplayMerger<Display>) entry.getKey().getDisplayMerger();
                 
                 if (merger != null) {
-                    class Wrapped implements DisplaySpec {
-                        private Display display;
-                        private List<ResourceLocation> ids = null;
-                        
-                        public Wrapped(Display display) {
-                            this.display = display;
-                        }
-                        
-                        @Override
-                        public boolean equals(Object o) {
-                            if (this == o) return true;
-                            if (!(o instanceof Wrapped)) return false;
-                            Wrapped wrapped = (Wrapped) o;
-                            return merger.canMerge(display, wrapped.display);
-                        }
-                        
-                        @Override
-                        public int hashCode() {
-                            return merger.hashOf(display);
-                        }
-                        
-                        @Override
-                        public Display provideInternalDisplay() {
-                            return display;
-                        }
-                        
-                        @Override
-                        public Collection<ResourceLocation> provideInternalDisplayIds() {
-                            if (ids == null) {
-                                ids = new ArrayList<>();
-                                Optional<ResourceLocation> location = display.getDisplayLocation();
-                                if (location.isPresent()) {
-                                    ids.add(location.get());
-                                }
-                            }
-                            return ids;
-                        }
-                        
-                        public void add(Display display) {
-                            Optional<ResourceLocation> location = display.getDisplayLocation();
-                            if (location.isPresent()) {
-                                provideInternalDisplayIds().add(location.get());
-                            }
-                        }
-                    }
-                    Map<Wrapped, Wrapped> wrappedSet = new LinkedHashMap<>();
-                    List<Wrapped> wrappeds = new ArrayList<>();
-                    
-                    for (Display display : sortAutoCrafting(entry.getValue())) {
-                        Wrapped wrapped = new Wrapped(display);
-                        if (wrappedSet.containsKey(wrapped)) {
-                            wrappedSet.get(wrapped).add(display);
-                        } else {
-                            wrappedSet.put(wrapped, wrapped);
-                            wrappeds.add(wrapped);
-                        }
-                    }
-                    
-                    resultSpeced.put(entry.getKey(), (List<DisplaySpec>) (List) wrappeds);
+                    resultSpeced.put(entry.getKey(), new MergedDisplayList(merger, entry.getValue()));
                 }
             }
         }
@@ -290,24 +223,6 @@ public class ViewsImpl implements Views {
         return false;
     }
     
-    private static Iterable<Display> sortAutoCrafting(List<Display> displays) {
-        Set<Display> successfulDisplays = new LinkedHashSet<>();
-        Set<Display> applicableDisplays = new LinkedHashSet<>();
-        
-        for (Display display : displays) {
-            AutoCraftingEvaluator.AutoCraftingResult result = AutoCraftingEvaluator.evaluateAutoCrafting(false, false, display, null);
-            
-            if (result.successful) {
-                successfulDisplays.add(display);
-            } else if (result.hasApplicable) {
-                applicableDisplays.add(display);
-            }
-        }
-        
-        return Iterables.concat(successfulDisplays, applicableDisplays,
-                Iterables.filter(displays, display -> !successfulDisplays.contains(display) && !applicableDisplays.contains(display)));
-    }
-    
     private static <T extends Display> void generateLiveDisplays(DisplayRegistry displayRegistry, DynamicDisplayGenerator<T> generator, ViewSearchBuilder builder, Consumer<T> displayConsumer) {
         boolean processingVisibilityHandlers = builder.isProcessingVisibilityHandlers();
         
@@ -349,79 +264,7 @@ public class ViewsImpl implements Views {
             return Collections.emptySet();
         }
         
-        AbstractContainerMenu menu = Minecraft.getInstance().player.containerMenu;
-        Set<EntryStack<?>> craftables = new HashSet<>();
-        for (Map.Entry<CategoryIdentifier<?>, List<Display>> entry : DisplayRegistry.getInstance().getAll().entrySet()) {
-            class InfoSerializationContext implements MenuSerializationContext<AbstractContainerMenu, LocalPlayer, Display> {
-                @Override
-                public AbstractContainerMenu getMenu() {
-                    return menu;
-                }
-                
-                @Override
-                public LocalPlayer getPlayerEntity() {
-                    return Minecraft.getInstance().player;
-                }
-                
-                @Override
-                public CategoryIdentifier<Display> getCategoryIdentifier() {
-                    return (CategoryIdentifier<Display>) entry.getKey();
-                }
-            }
-            
-            InfoSerializationContext context = new InfoSerializationContext();
-            
-            List<Display> displays = entry.getValue();
-            for (Display display : displays) {
-                MenuInfo<AbstractContainerMenu, Display> info = menu != null ?
-                        MenuInfoRegistry.getInstance().getClient(display, context, menu)
-                        : null;
-                
-                Iterable<SlotAccessor> inputSlots = info != null ? info.getInputSlots(context.withDisplay(display)) : Collections.emptySet();
-                int slotsCraftable = 0;
-                boolean containsNonEmpty = false;
-                List<EntryIngredient> requiredInput = display.getRequiredEntries();
-                Long2LongMap invCount = new Long2LongOpenHashMap(CraftableFilter.INSTANCE.getInvStacks());
-                for (SlotAccessor inputSlot : inputSlots) {
-                    ItemStack stack = inputSlot.getItemStack();
-                    
-                    EntryDefinition<ItemStack> definition;
-                    try {
-                        definition = VanillaEntryTypes.ITEM.getDefinition();
-                    } catch (NullPointerException e) {
-                        break;
-                    }
-                    
-                    if (!stack.isEmpty()) {
-                        long hash = definition.hash(null, stack, ComparisonContext.FUZZY);
-                        long newCount = invCount.get(hash) + Math.max(0, stack.getCount());
-                        invCount.put(hash, newCount);
-                    }
-                }
-                for (EntryIngredient slot : requiredInput) {
-                    if (slot.isEmpty()) {
-                        slotsCraftable++;
-                        continue;
-                    }
-                    for (EntryStack<?> slotPossible : slot) {
-                        if (slotPossible.getType() != VanillaEntryTypes.ITEM) continue;
-                        ItemStack stack = slotPossible.castValue();
-                        long hashFuzzy = EntryStacks.hashFuzzy(slotPossible);
-                        long availableAmount = invCount.get(hashFuzzy);
-                        if (availableAmount >= stack.getCount()) {
-                            invCount.put(hashFuzzy, availableAmount - stack.getCount());
-                            containsNonEmpty = true;
-                            slotsCraftable++;
-                            break;
-                        }
-                    }
-                }
-                if (slotsCraftable == display.getRequiredEntries().size() && containsNonEmpty) {
-                    display.getOutputEntries().stream().flatMap(Collection::stream).collect(Collectors.toCollection(() -> craftables));
-                }
-            }
-        }
-        return craftables;
+        return craftableTracker.findCraftableEntries();
     }
     
     private static <T> boolean isStackWorkStationOfCategory(CategoryRegistry.CategoryConfiguration<?> category, EntryStack<T> stack) {
@@ -435,6 +278,6 @@ public class ViewsImpl implements Views {
     
     @Override
     public void startReload() {
-        
+        craftableTracker.reset();
     }
 }
@@ -33,6 +33,7 @@ import me.shedaniel.rei.api.client.ClientHelper;
 import me.shedaniel.rei.api.client.gui.Renderer;
 import me.shedaniel.rei.api.client.gui.widgets.Tooltip;
 import me.shedaniel.rei.api.common.entry.EntryStack;
+import me.shedaniel.rei.api.common.entry.comparison.ComparisonContext;
 import me.shedaniel.rei.api.common.entry.settings.EntrySettingsAdapterRegistry;
 import me.shedaniel.rei.api.common.util.EntryStacks;
 import me.shedaniel.rei.api.common.util.FormattingUtils;
@@ -56,7 +57,13 @@ import java.util.stream.Stream;
 @ApiStatus.Internal
 public abstract class AbstractEntryStack<A> implements EntryStack<A>, Renderer {
     private static final Short2ObjectMap<Object> EMPTY_SETTINGS = Short2ObjectMaps.emptyMap();
+    // bumped when the comparators change, cached hashes of older generations are stale
+    private static volatile int hashGeneration = 1;
     private Short2ObjectMap<Object> settings = null;
+    @Nullable
+    private CachedHash exactHash;
+    @Nullable
+    private CachedHash fuzzyHash;
     @Environment(EnvType.CLIENT)
     private int blitOffset;
     
@@ -74,6 +81,7 @@ public abstract class AbstractEntryStack<A> implements EntryStack<A>, Renderer {
     
     @Override
     public <T> EntryStack<A> setting(Settings<T> settings, T value) {
+        invalidateHash();
         short settingsId = settings.getId();
         if (this.settings == null)
             this.settings = Short2ObjectMaps.singleton(settingsId, value);
@@ -96,6 +104,7 @@ public abstract class AbstractEntryStack<A> implements EntryStack<A>, Renderer {
     @Override
     public <T> EntryStack<A> removeSetting(Settings<T> settings) {
         if (this.settings != null) {
+            invalidateHash();
             short settingsId = settings.getId();
             if (this.settings.size() == 1) {
                 if (this.settings.containsKey(settingsId)) {
@@ -110,6 +119,7 @@ public abstract class AbstractEntryStack<A> implements EntryStack<A>, Renderer {
     
     @Override
     public EntryStack<A> clearSettings() {
+        invalidateHash();
         this.settings = null;
         return this;
     }
@@ -237,6 +247,42 @@ public abstract class AbstractEntryStack<A> implements EntryStack<A>, Renderer {
         }
     }
     
+    /**
+     * Marks the cached hashes of every stack as stale, this is called when the comparators change.
+     */
+    public static void invalidateHashes() {
+        hashGeneration++;
+    }
+    
+    private void invalidateHash() {
+        this.exactHash = null;
+        this.fuzzyHash = null;
+    }
+    
+    /**
+     * Returns the hash of the stack, the exact and fuzzy hashes are cached until the settings of the stack
+     * or the comparators change. The value of the stack is assumed to not be mutated, stacks are copied instead.
+     */
+    @Override
+    public long hash(ComparisonContext context) {
+        if (context == ComparisonContext.EXACT) {
+            CachedHash hash = exactHash;
+            int generation = hashGeneration;
+            if (hash == null || hash.generation() != generation) {
+                exactHash = hash = new CachedHash(generation, EntryStack.super.hash(context));
+            }
+            return hash.value();
+        } else if (context == ComparisonContext.FUZZY) {
+            CachedHash hash = fuzzyHash;
+            int generation = hashGeneration;
+            if (hash == null || hash.generation() != generation) {
+                fuzzyHash = hash = new CachedHash(generation, EntryStack.super.hash(context));
+            }
+            return hash.value();
+        }
+        return EntryStack.super.hash(context);
+    }
+    
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -273,4 +319,6 @@ public abstract class AbstractEntryStack<A> implements EntryStack<A>, Renderer {
             rendererCategory.setDetailError("Filling Report", throwable);
         }
     }
+    
+    private record CachedHash(int generation, long value) {}
 }
@@ -24,12 +24,19 @@
 package me.shedaniel.rei.impl.common.entry;
 
 import com.google.common.collect.Iterators;
+import com.google.common.collect.MapMaker;
+import me.shedaniel.rei.RoughlyEnoughItemsCore;
 import me.shedaniel.rei.api.common.entry.EntryIngredient;
 import me.shedaniel.rei.api.common.entry.EntryStack;
+import me.shedaniel.rei.api.common.entry.type.VanillaEntryTypes;
+import me.shedaniel.rei.api.common.plugins.PluginManager;
 import me.shedaniel.rei.impl.Internals;
 import net.minecraft.nbt.ListTag;
+import net.minecraft.world.item.ItemStack;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Consumer;
 import java.util.function.Predicate;
 import java.util.function.UnaryOperator;
@@ -38,6 +45,22 @@ import java.util.stream.StreamSupport;
 public enum EntryIngredientImpl implements Internals.EntryIngredientProvider {
     INSTANCE;
     
+    private static final boolean INTERN = System.getProperty("rei.internIngredients", "false").equals("true");
+    // values are weak, entries are dropped once no display holds the ingredient or stack anymore
+    private final ConcurrentMap<IngredientKey, EntryIngredient> internedIngredients = new MapMaker().weakValues().makeMap();
+    private final ConcurrentMap<StackKey, EntryStack<?>> internedStacks = new MapMaker().weakValues().makeMap();
+    private final AtomicLong sharedIngredients = new AtomicLong();
+    private final AtomicLong sharedStacks = new AtomicLong();
+    
+    static {
+        if (INTERN) {
+            RoughlyEnoughItemsCore.PERFORMANCE_LOGGER.statistic("Ingredient Interning", "shared", () -> {
+                return String.format(Locale.ROOT, "%d ingredients, %d stacks interned, %d ingredients and %d stacks shared",
+                        INSTANCE.internedIngredients.size(), INSTANCE.internedStacks.size(), INSTANCE.sharedIngredients.get(), INSTANCE.sharedStacks.get());
+            });
+        }
+    }
+    
     @Override
     public EntryIngredient empty() {
         return EmptyEntryIngredient.EMPTY;
@@ -71,6 +94,75 @@ public enum EntryIngredientImpl implements Internals.EntryIngredientProvider {
         return new ArrayIngredient(stacks);
     }
     
+    /**
+     * Interns ingredients of item stacks while plugins are reloading, this is enabled with {@code -Drei.internIngredients=true}.
+     * Ingredients are compared by the item, count and tag of their stacks.
+     */
+    @Override
+    public EntryIngredient intern(EntryIngredient ingredient) {
+        if (!INTERN || ingredient.isEmpty() || !PluginManager.areAnyReloading()) return ingredient;
+        ItemStack[] values = new ItemStack[ingredient.size()];
+        for (int i = 0; i < values.length; i++) {
+            EntryStack<?> stack = ingredient.get(i);
+            if (stack.getType() != VanillaEntryTypes.ITEM) return ingredient;
+            values[i] = stack.castValue();
+        }
+        IngredientKey key = new IngredientKey(values);
+        EntryIngredient interned = internedIngredients.get(key);
+        if (interned == null) {
+            EntryStack<?>[] stacks = new EntryStack[values.length];
+            for (int i = 0; i < values.length; i++) {
+                EntryStack<?> stack = internedStacks.putIfAbsent(new StackKey(values[i]), ingredient.get(i));
+                if (stack != null) {
+                    sharedStacks.incrementAndGet();
+                }
+                stacks[i] = stack == null ? ingredient.get(i) : stack;
+            }
+            EntryIngredient canonical = stacks.length == 1 ? of(stacks[0]) : _of(stacks);
+            interned = internedIngredients.putIfAbsent(key, canonical);
+            if (interned == null) return canonical;
+        }
+        sharedIngredients.incrementAndGet();
+        sharedStacks.addAndGet(values.length);
+        return interned;
+    }
+    
+    private static int hash(ItemStack stack) {
+        return 31 * (31 * System.identityHashCode(stack.getItem()) + stack.getCount()) + Objects.hashCode(stack.getTag());
+    }
+    
+    private record StackKey(ItemStack stack) {
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof StackKey key && ItemStack.matches(stack, key.stack);
+        }
+        
+        @Override
+        public int hashCode() {
+            return hash(stack);
+        }
+    }
+    
+    private record IngredientKey(ItemStack[] stacks) {
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof IngredientKey key) || key.stacks.length != stacks.length) return false;
+            for (int i = 0; i < stacks.length; i++) {
+                if (!ItemStack.matches(stacks[i], key.stacks[i])) return false;
+            }
+            return true;
+        }
+        
+        @Override
+        public int hashCode() {
+            int hash = 1;
+            for (ItemStack stack : stacks) {
+                hash = 31 * hash + hash(stack);
+            }
+            return hash;
+        }
+    }
+    
     @Override
     public EntryIngredient.Builder builder() {
         return new EntryIngredientBuilder(0);
@@ -27,6 +27,7 @@ import me.shedaniel.rei.api.common.entry.comparison.ComparisonContext;
 import me.shedaniel.rei.api.common.entry.comparison.EntryComparator;
 import me.shedaniel.rei.api.common.entry.comparison.EntryComparatorRegistry;
 import me.shedaniel.rei.api.common.registry.ReloadStage;
+import me.shedaniel.rei.impl.common.entry.AbstractEntryStack;
 import org.jetbrains.annotations.ApiStatus;
 
 import java.util.ArrayList;
@@ -46,11 +47,13 @@ public abstract class EntryComparatorRegistryImpl<T, S> implements EntryComparat
             comparator = existing.then(comparator);
         }
         this.comparators.put(entry, comparator);
+        AbstractEntryStack.invalidateHashes();
     }
     
     @Override
     public void registerGlobal(EntryComparator<T> comparator) {
         this.globalComparators.add(comparator);
+        AbstractEntryStack.invalidateHashes();
     }
     
     @Override
@@ -62,6 +65,7 @@ public abstract class EntryComparatorRegistryImpl<T, S> implements EntryComparat
     public void startReload() {
         globalComparators.clear();
         comparators.clear();
+        AbstractEntryStack.invalidateHashes();
     }
     
     public abstract S getEntry(T stack);
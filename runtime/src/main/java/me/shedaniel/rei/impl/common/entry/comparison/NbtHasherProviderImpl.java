@@ -27,8 +27,15 @@ import com.google.common.base.Predicates;
 import me.shedaniel.rei.api.common.entry.comparison.ComparisonContext;
 import me.shedaniel.rei.api.common.entry.comparison.EntryComparator;
 import me.shedaniel.rei.impl.Internals;
+import net.minecraft.nbt.ByteArrayTag;
 import net.minecraft.nbt.CompoundTag;
+import net.minecraft.nbt.DoubleTag;
+import net.minecraft.nbt.FloatTag;
+import net.minecraft.nbt.IntArrayTag;
 import net.minecraft.nbt.ListTag;
+import net.minecraft.nbt.LongArrayTag;
+import net.minecraft.nbt.NumericTag;
+import net.minecraft.nbt.StringTag;
 import net.minecraft.nbt.Tag;
 import org.jetbrains.annotations.Nullable;
 
@@ -37,6 +44,8 @@ import java.util.function.Predicate;
 
 public enum NbtHasherProviderImpl implements Internals.NbtHasherProvider {
     INSTANCE;
+    private static final long PRIME = 0x100000001b3L;
+    private static final long GOLDEN_RATIO = 0x9e3779b97f4a7c15L;
     private final EntryComparator<Tag> defaultHasher = _provide();
     
     @Override
@@ -73,29 +82,85 @@ public enum NbtHasherProviderImpl implements Internals.NbtHasherProvider {
             return hashTag(value);
         }
         
-        private int hashTag(Tag tag) {
+        private long hashTag(Tag tag) {
             if (tag == null) return 0;
-            if (tag instanceof ListTag list) return hashListTag(list);
-            if (tag instanceof CompoundTag compound) return hashCompoundTag(compound);
-            return tag.hashCode();
+            long hash;
+            if (tag instanceof CompoundTag compound) hash = hashCompoundTag(compound);
+            else if (tag instanceof ListTag list) hash = hashListTag(list);
+            else if (tag instanceof StringTag string) hash = hashString(string.getAsString());
+            else if (tag instanceof FloatTag || tag instanceof DoubleTag) hash = Double.doubleToLongBits(((NumericTag) tag).getAsDouble());
+            else if (tag instanceof NumericTag numeric) hash = numeric.getAsLong();
+            else if (tag instanceof ByteArrayTag array) hash = hashArray(array.getAsByteArray());
+            else if (tag instanceof IntArrayTag array) hash = hashArray(array.getAsIntArray());
+            else if (tag instanceof LongArrayTag array) hash = hashArray(array.getAsLongArray());
+            else hash = tag.hashCode();
+            // the type is part of the hash, so equal values of different types do not collide
+            return mix(hash + tag.getId() * GOLDEN_RATIO);
         }
         
-        private int hashListTag(ListTag tag) {
-            int i = tag.size();
+        private long hashListTag(ListTag tag) {
+            long hash = tag.size();
             for (Tag innerTag : tag) {
-                i = i * 31 + hashTag(innerTag);
+                hash = hash * PRIME + hashTag(innerTag);
             }
-            return i;
+            return hash;
         }
         
-        private int hashCompoundTag(CompoundTag tag) {
-            int i = 1;
+        private long hashCompoundTag(CompoundTag tag) {
+            // entries are summed, so the hash does not depend on the iteration order of the map
+            long hash = 0;
+            int size = 0;
             for (Map.Entry<String, Tag> entry : tag.tags.entrySet()) {
                 if (shouldHash(entry.getKey())) {
-                    i = i * 31 + (Objects.hashCode(entry.getKey()) ^ hashTag(entry.getValue()));
+                    hash += mix(hashString(entry.getKey()) * PRIME + hashTag(entry.getValue()));
+                    size++;
                 }
             }
-            return i;
+            return hash + size;
         }
     }
+    
+    private static long hashString(String string) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < string.length(); i++) {
+            hash = (hash ^ string.charAt(i)) * PRIME;
+        }
+        return hash;
+    }
+    
+    private static long hashArray(byte[] array) {
+        long hash = array.length;
+        for (byte value : array) {
+            hash = hash * PRIME + value;
+        }
+        return hash;
+    }
+    
+    private static long hashArray(int[] array) {
+        long hash = array.length;
+        for (int value : array) {
+            hash = hash * PRIME + value;
+        }
+        return hash;
+    }
+    
+    private static long hashArray(long[] array) {
+        long hash = array.length;
+        for (long value : array) {
+            hash = hash * PRIME + value;
+        }
+        return hash;
+    }
+    
+    /**
+     * Finalizer of MurmurHash3, spreads every input bit over the whole hash.
+     */
+    private static long mix(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
 }
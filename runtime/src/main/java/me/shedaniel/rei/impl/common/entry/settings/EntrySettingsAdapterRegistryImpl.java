@@ -25,6 +25,7 @@ package me.shedaniel.rei.impl.common.entry.settings;
 
 import com.google.common.collect.Multimap;
 import com.google.common.collect.Multimaps;
+import it.unimi.dsi.fastutil.objects.Reference2ObjectMap;
 import it.unimi.dsi.fastutil.objects.Reference2ObjectOpenHashMap;
 import me.shedaniel.rei.api.client.entry.renderer.EntryRenderer;
 import me.shedaniel.rei.api.client.entry.renderer.EntryRendererProvider;
@@ -41,30 +42,79 @@ import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
 
+/**
+ * Registry of the settings adapters, the adapters are compiled into an array indexed by the id of the settings
+ * the first time a setting is adapted after the adapters change.
+ * <p>
+ * Settings without adapters are a single array load, otherwise the adapters of each entry type are composed into one adapter.
+ */
 public class EntrySettingsAdapterRegistryImpl implements EntrySettingsAdapterRegistry {
     private final Map<EntryStack.Settings<?>, Multimap<EntryType<?>, EntrySettingsAdapter<?, ?>>> providers = new HashMap<>();
+    @Nullable
+    private volatile Reference2ObjectMap<EntryType<?>, EntrySettingsAdapter<?, ?>>[] compiled;
     
     @Override
     public <T,S> void register(EntryType<T> type, EntryStack.Settings<S> settings, EntrySettingsAdapter<T,S> provider) {
-        Multimap<EntryType<?>, EntrySettingsAdapter<?, ?>> multimap = this.providers.computeIfAbsent(settings, $ -> Multimaps.newMultimap(new Reference2ObjectOpenHashMap<>(), ArrayList::new));
-        multimap.put(type, provider);
+        synchronized (providers) {
+            Multimap<EntryType<?>, EntrySettingsAdapter<?, ?>> multimap = this.providers.computeIfAbsent(settings, $ -> Multimaps.newMultimap(new Reference2ObjectOpenHashMap<>(), ArrayList::new));
+            multimap.put(type, provider);
+            this.compiled = null;
+        }
     }
     
     @Override
     @Nullable
     public <T,S> S adapt(EntryStack<T> stack, EntryStack.Settings<S> settings, @Nullable S value) {
-        Multimap<EntryType<?>, EntrySettingsAdapter<?, ?>> multimap = providers.get(settings);
-        if (multimap != null) {
-            for (EntrySettingsAdapter<T, S> adapter : (Collection<EntrySettingsAdapter<T, S>>) (Collection<? extends EntrySettingsAdapter<?, ?>>) multimap.get(stack.getType())) {
-                value = adapter.provide(stack, settings, value);
+        Reference2ObjectMap<EntryType<?>, EntrySettingsAdapter<?, ?>>[] compiled = this.compiled;
+        if (compiled == null) compiled = compile();
+        short id = settings.getId();
+        // settings created after the adapters were compiled have no adapters
+        if (id >= compiled.length) return value;
+        Reference2ObjectMap<EntryType<?>, EntrySettingsAdapter<?, ?>> adapters = compiled[id];
+        if (adapters == null) return value;
+        EntrySettingsAdapter<T, S> adapter = (EntrySettingsAdapter<T, S>) adapters.get(stack.getType());
+        return adapter == null ? value : adapter.provide(stack, settings, value);
+    }
+    
+    private Reference2ObjectMap<EntryType<?>, EntrySettingsAdapter<?, ?>>[] compile() {
+        synchronized (providers) {
+            Reference2ObjectMap<EntryType<?>, EntrySettingsAdapter<?, ?>>[] compiled = this.compiled;
+            if (compiled != null) return compiled;
+            int length = 0;
+            for (EntryStack.Settings<?> settings : providers.keySet()) {
+                length = Math.max(length, settings.getId() + 1);
             }
+            compiled = new Reference2ObjectMap[length];
+            for (Map.Entry<EntryStack.Settings<?>, Multimap<EntryType<?>, EntrySettingsAdapter<?, ?>>> entry : providers.entrySet()) {
+                if (entry.getValue().isEmpty()) continue;
+                Reference2ObjectMap<EntryType<?>, EntrySettingsAdapter<?, ?>> adapters = new Reference2ObjectOpenHashMap<>();
+                for (Map.Entry<EntryType<?>, Collection<EntrySettingsAdapter<?, ?>>> typeEntry : entry.getValue().asMap().entrySet()) {
+                    adapters.put(typeEntry.getKey(), compose((Collection<EntrySettingsAdapter<Object, Object>>) (Collection<? extends EntrySettingsAdapter<?, ?>>) typeEntry.getValue()));
+                }
+                compiled[entry.getKey().getId()] = adapters;
+            }
+            this.compiled = compiled;
+            return compiled;
         }
-        return value;
+    }
+    
+    private static EntrySettingsAdapter<Object, Object> compose(Collection<EntrySettingsAdapter<Object, Object>> adapters) {
+        if (adapters.size() == 1) return adapters.iterator().next();
+        EntrySettingsAdapter<Object, Object>[] array = adapters.toArray(new EntrySettingsAdapter[0]);
+        return (stack, settings, value) -> {
+            for (EntrySettingsAdapter<Object, Object> adapter : array) {
+                value = adapter.provide(stack, settings, value);
+            }
+            return value;
+        };
     }
     
     @Override
     public void startReload() {
-        providers.clear();
+        synchronized (providers) {
+            providers.clear();
+            this.compiled = null;
+        }
     }
     
     @Override
@@ -46,7 +46,9 @@ import me.shedaniel.rei.impl.client.entry.filtering.FilteringCacheImpl;
 import me.shedaniel.rei.impl.client.entry.filtering.FilteringContextImpl;
 import me.shedaniel.rei.impl.client.entry.filtering.FilteringContextType;
 import me.shedaniel.rei.impl.client.entry.filtering.FilteringRule;
+import me.shedaniel.rei.impl.client.entry.filtering.FilteringRuleResults;
 import me.shedaniel.rei.impl.client.gui.ScreenOverlayImpl;
+import me.shedaniel.rei.impl.client.search.argument.SearchAttributeTable;
 import me.shedaniel.rei.impl.common.util.HashedEntryStackWrapper;
 import net.fabricmc.api.EnvType;
 import net.fabricmc.api.Environment;
@@ -70,11 +72,17 @@ import java.util.stream.Stream;
 public class EntryRegistryImpl implements EntryRegistry {
     public List<Runnable> refilterListener = Lists.newCopyOnWriteArrayList();
     private List<EntryStack<?>> preFilteredList = Lists.newCopyOnWriteArrayList();
+    @Nullable
+    private List<EntryStack<?>> preFilteredListView;
+    @Nullable
+    private List<EntryStack<?>> preFilteredListViewSource;
     private List<EntryStack<?>> entries = Lists.newCopyOnWriteArrayList();
     private LongSet entriesHash = new LongOpenHashSet();
     @Nullable
     private List<HashedEntryStackWrapper> reloadingRegistry;
     private boolean reloading;
+    @Nullable
+    private FilteringRuleResults filteringResults;
     
     @Override
     public void acceptPlugin(REIClientPlugin plugin) {
@@ -93,6 +101,7 @@ public class EntryRegistryImpl implements EntryRegistry {
         entriesHash = new LongOpenHashSet();
         reloadingRegistry = Lists.newArrayListWithCapacity(Registry.ITEM.keySet().size() + 100);
         preFilteredList = Lists.newCopyOnWriteArrayList();
+        filteringResults = null;
         reloading = true;
     }
     
@@ -102,6 +111,8 @@ public class EntryRegistryImpl implements EntryRegistry {
         preFilteredList = Lists.newCopyOnWriteArrayList();
         entries = Lists.newCopyOnWriteArrayList(CollectionUtils.filterAndMap(reloadingRegistry, ((Predicate<HashedEntryStackWrapper>) HashedEntryStackWrapper::isEmpty).negate(), HashedEntryStackWrapper::unwrap));
         reloadingRegistry = null;
+        filteringResults = null;
+        SearchAttributeTable.build(entries);
         refilter();
         REIRuntime.getInstance().getOverlay().ifPresent(ScreenOverlay::queueReloadOverlay);
     }
@@ -118,7 +129,13 @@ public class EntryRegistryImpl implements EntryRegistry {
     
     @Override
     public List<EntryStack<?>> getPreFilteredList() {
-        return Collections.unmodifiableList(preFilteredList);
+        // keep the same view while the list is the same, so consumers can compare it by identity
+        List<EntryStack<?>> list = preFilteredList;
+        if (preFilteredListView == null || preFilteredListViewSource != list) {
+            preFilteredListView = Collections.unmodifiableList(list);
+            preFilteredListViewSource = list;
+        }
+        return preFilteredListView;
     }
     
     @Override
@@ -133,27 +150,24 @@ public class EntryRegistryImpl implements EntryRegistry {
         
         Stopwatch stopwatch = Stopwatch.createStarted();
         
-        FilteringContextImpl context = new FilteringContextImpl(entries);
-        FilteringCacheImpl cache = new FilteringCacheImpl();
-        List<FilteringRule<?>> rules = ((ConfigObjectImpl) ConfigObject.getInstance()).getFilteringRules();
-        Stopwatch innerStopwatch = Stopwatch.createStarted();
-        for (int i = rules.size() - 1; i >= 0; i--) {
-            innerStopwatch.reset().start();
-            FilteringRule<?> rule = rules.get(i);
-            cache.setCache(rule, rule.prepareCache(true));
-            context.handleResult(rule.processFilteredStacks(context, cache, true));
-            RoughlyEnoughItemsCore.LOGGER.debug("Refiltered rule [%s] in %s.", FilteringRule.REGISTRY.inverse().get(rule).toString(), innerStopwatch.stop().toString());
+        // the results of unchanged rules are kept until the entries change
+        FilteringRuleResults results = this.filteringResults;
+        if (results == null) {
+            this.filteringResults = results = new FilteringRuleResults(entries);
         }
+        List<FilteringRule<?>> rules = ((ConfigObjectImpl) ConfigObject.getInstance()).getFilteringRules();
+        BitSet hidden = results.refilter(rules);
         
-        Set<HashedEntryStackWrapper> hiddenStacks = context.stacks.get(FilteringContextType.HIDDEN);
-        if (hiddenStacks.isEmpty()) {
-            preFilteredList = Lists.newCopyOnWriteArrayList(entries);
+        if (hidden.isEmpty()) {
+            preFilteredList = Lists.newCopyOnWriteArrayList(results.getEntries());
         } else {
-            preFilteredList = entries.parallelStream()
-                    .map(HashedEntryStackWrapper::new)
-                    .filter(not(hiddenStacks::contains))
-                    .map(HashedEntryStackWrapper::unwrap)
-                    .collect(Collectors.toCollection(Lists::newCopyOnWriteArrayList));
+            List<EntryStack<?>> filtered = new ArrayList<>(results.getEntries().size() - hidden.cardinality());
+            for (int i = 0; i < results.getEntries().size(); i++) {
+                if (!hidden.get(i)) {
+                    filtered.add(results.getEntries().get(i));
+                }
+            }
+            preFilteredList = Lists.newCopyOnWriteArrayList(filtered);
         }
         
         RoughlyEnoughItemsCore.LOGGER.debug("Refiltered %d entries with %d rules in %s.", entries.size() - preFilteredList.size(), rules.size(), stopwatch.stop().toString());
@@ -197,6 +211,7 @@ public class EntryRegistryImpl implements EntryRegistry {
                 int index = entries.lastIndexOf(afterEntry);
                 entries.add(index, stack);
             } else entries.add(stack);
+            filteringResults = null;
             preFilteredList.addAll(refilterNew(true, Collections.singletonList(stack)));
             queueSearchUpdate();
         }
@@ -216,6 +231,7 @@ public class EntryRegistryImpl implements EntryRegistry {
                 int index = entries.lastIndexOf(afterEntry);
                 entries.addAll(index, filtered);
             } else entries.addAll(filtered);
+            filteringResults = null;
             preFilteredList.addAll(refilterNew(true, filtered));
             queueSearchUpdate();
         }
@@ -274,6 +290,7 @@ public class EntryRegistryImpl implements EntryRegistry {
         } else {
             preFilteredList.remove(stack);
             entries.remove(stack);
+            filteringResults = null;
             return entriesHash.remove(EntryStacks.hashExact(stack));
         }
     }
@@ -299,6 +316,7 @@ public class EntryRegistryImpl implements EntryRegistry {
                 return false;
             };
             preFilteredList.removeIf(entryStackPredicate);
+            filteringResults = null;
             return entries.removeIf(entryStackPredicate);
         }
     }
@@ -318,6 +336,7 @@ public class EntryRegistryImpl implements EntryRegistry {
             return reloadingRegistry.removeIf(wrapper -> entryStackPredicate.test(wrapper.hashExact()));
         } else {
             preFilteredList.removeIf(stack -> entryStackPredicate.test(EntryStacks.hashExact(stack)));
+            filteringResults = null;
             return entries.removeIf(stack -> entryStackPredicate.test(EntryStacks.hashExact(stack)));
         }
     }
@@ -337,6 +356,7 @@ public class EntryRegistryImpl implements EntryRegistry {
             return reloadingRegistry.removeIf(wrapper -> entryStackPredicate.test(wrapper.unwrap()));
         } else {
             preFilteredList.removeIf(entryStackPredicate);
+            filteringResults = null;
             return entries.removeIf(entryStackPredicate);
         }
     }
@@ -28,6 +28,7 @@ import me.shedaniel.rei.api.common.plugins.REIPlugin;
 import me.shedaniel.rei.api.common.plugins.REIPluginProvider;
 
 import java.util.Map;
+import java.util.function.Supplier;
 
 public interface PerformanceLogger {
     Plugin stage(String stage);
@@ -36,6 +37,17 @@ public interface PerformanceLogger {
     
     Map<String, Plugin> getStages();
     
+    /**
+     * Registers a live statistic to be shown alongside the stages, statistics are not removed by {@link #clear()}.
+     *
+     * @param category the category of the statistic
+     * @param name     the name of the statistic
+     * @param value    the supplier of the current value
+     */
+    void statistic(String category, String name, Supplier<String> value);
+    
+    Map<String, Map<String, Supplier<String>>> getStatistics();
+    
     interface Plugin extends AutoCloseable {
         Inner stage(String stage);
         
@@ -35,9 +35,11 @@ import me.shedaniel.rei.api.common.plugins.REIPluginProvider;
 import java.util.Collections;
 import java.util.Map;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 
 public class PerformanceLoggerImpl implements PerformanceLogger {
     private final Map<String, PluginImpl> stages = Collections.synchronizedMap(Maps.newLinkedHashMap());
+    private final Map<String, Map<String, Supplier<String>>> statistics = Collections.synchronizedMap(Maps.newLinkedHashMap());
     
     @Override
     public Plugin stage(String stage) {
@@ -51,6 +53,16 @@ public class PerformanceLoggerImpl implements PerformanceLogger {
         return (Map<String, Plugin>) (Map<String, ? extends Plugin>) stages;
     }
     
+    @Override
+    public void statistic(String category, String name, Supplier<String> value) {
+        statistics.computeIfAbsent(category, $ -> Collections.synchronizedMap(Maps.newLinkedHashMap())).put(name, value);
+    }
+    
+    @Override
+    public Map<String, Map<String, Supplier<String>>> getStatistics() {
+        return statistics;
+    }
+    
     private static class PluginImpl implements Plugin {
         private final Stopwatch stopwatch = Stopwatch.createUnstarted();
         private long totalTime = 0;
@@ -61,7 +73,9 @@ public class PerformanceLoggerImpl implements PerformanceLogger {
             Stopwatch s = Stopwatch.createStarted();
             return () -> {
                 s.stop();
-                times.put(stage, times.getOrDefault(stage, 0) + s.elapsed(TimeUnit.NANOSECONDS));
+                synchronized (times) {
+                    times.put(stage, times.getOrDefault(stage, 0) + s.elapsed(TimeUnit.NANOSECONDS));
+                }
             };
         }
         
@@ -70,7 +84,9 @@ public class PerformanceLoggerImpl implements PerformanceLogger {
             Stopwatch s = Stopwatch.createStarted();
             return () -> {
                 s.stop();
-                times.put(plugin, times.getOrDefault(plugin, 0) + s.elapsed(TimeUnit.NANOSECONDS));
+                synchronized (times) {
+                    times.put(plugin, times.getOrDefault(plugin, 0) + s.elapsed(TimeUnit.NANOSECONDS));
+                }
             };
         }
         
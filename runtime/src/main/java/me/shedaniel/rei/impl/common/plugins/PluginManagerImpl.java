@@ -48,14 +48,15 @@ import org.jetbrains.annotations.Nullable;
 
 import java.io.Closeable;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.BiConsumer;
 import java.util.function.LongConsumer;
 import java.util.function.UnaryOperator;
 
 @ApiStatus.Internal
 public class PluginManagerImpl<P extends REIPlugin<?>> implements PluginManager<P>, PluginView<P> {
+    private static final boolean PARALLEL_RELOAD = System.getProperty("rei.parallelReload", "false").equals("true");
     private final List<Reloadable<P>> reloadables = new ArrayList<>();
     private final Map<Class<? extends Reloadable<P>>, Reloadable<? super P>> cache = new ConcurrentHashMap<>();
     private final Class<P> pluginClass;
@@ -208,6 +209,112 @@ public class PluginManagerImpl<P extends REIPlugin<?>> implements PluginManager<
         }
     }
     
+    /**
+     * Reloads the plugins that are concurrently reloadable in parallel, other plugins act as barriers so the order of the plugins is kept.
+     * The registrations of the concurrent plugins are buffered and applied in the order of the plugins.
+     */
+    private void parallelPluginSection(ReloadStage stage, String sectionName, List<PluginWrapper<P>> list, Reloadable<?> reloadable, BiConsumer<PluginWrapper<P>, SectionPluginSink> consumer) {
+        List<PluginWrapper<P>> batch = new ArrayList<>();
+        long sequentialNanos = 0, wallNanos = 0;
+        int parallelPlugins = 0;
+        for (PluginWrapper<P> wrapper : list) {
+            if (wrapper.plugin.isConcurrentlyReloadable(reloadable) && !wrapper.plugin.shouldBeForcefullyDoneOnMainThread(reloadable)) {
+                batch.add(wrapper);
+                continue;
+            }
+            if (!batch.isEmpty()) {
+                long[] times = runBatch(stage, sectionName, batch, reloadable, consumer);
+                sequentialNanos += times[0];
+                wallNanos += times[1];
+                parallelPlugins += batch.size();
+                batch.clear();
+            }
+            pluginSection(stage, sectionName, Collections.singletonList(wrapper), reloadable, consumer);
+        }
+        if (!batch.isEmpty()) {
+            long[] times = runBatch(stage, sectionName, batch, reloadable, consumer);
+            sequentialNanos += times[0];
+            wallNanos += times[1];
+            parallelPlugins += batch.size();
+        }
+        if (wallNanos > 0) {
+            String statistic = String.format(Locale.ROOT, "%d plugins, %.1fms in %.1fms, %.2fx speedup", parallelPlugins,
+                    sequentialNanos / 1000000.0, wallNanos / 1000000.0, (double) sequentialNanos / wallNanos);
+            RoughlyEnoughItemsCore.LOGGER.debug("[" + stage + "] Parallel reload of \"%s\": %s", sectionName, statistic);
+            RoughlyEnoughItemsCore.PERFORMANCE_LOGGER.statistic("Parallel Reload", name(pluginClass) + " " + name(reloadable.getClass()), () -> statistic);
+        }
+    }
+    
+    /**
+     * @return the sum of the time taken by each plugin, and the wall time of the batch, in nanoseconds
+     */
+    private long[] runBatch(ReloadStage stage, String sectionName, List<PluginWrapper<P>> batch, Reloadable<?> reloadable, BiConsumer<PluginWrapper<P>, SectionPluginSink> consumer) {
+        if (batch.size() == 1) {
+            long start = System.nanoTime();
+            pluginSection(stage, sectionName, batch, reloadable, consumer);
+            long time = System.nanoTime() - start;
+            return new long[]{time, time};
+        }
+        long start = System.nanoTime();
+        List<List<Runnable>> buffers = new ArrayList<>(batch.size());
+        List<CompletableFuture<Long>> futures = new ArrayList<>(batch.size());
+        for (PluginWrapper<P> wrapper : batch) {
+            List<Runnable> buffer = new ArrayList<>();
+            buffers.add(buffer);
+            futures.add(CompletableFuture.supplyAsync(() -> {
+                long pluginStart = System.nanoTime();
+                PluginReloadBuffer.begin(buffer);
+                try {
+                    pluginSection(stage, sectionName, Collections.singletonList(wrapper), reloadable, consumer);
+                } finally {
+                    PluginReloadBuffer.end();
+                }
+                return System.nanoTime() - pluginStart;
+            }, ParallelReload.EXECUTOR));
+        }
+        long sequential = 0;
+        // wait for the whole batch first, the plugins still running must not observe the registrations being applied
+        for (int i = 0; i < batch.size(); i++) {
+            try {
+                sequential += futures.get(i).join();
+            } catch (Throwable throwable) {
+                RoughlyEnoughItemsCore.LOGGER.error(batch.get(i).getPluginProviderName() + " plugin failed to " + sectionName + "!", throwable);
+            }
+        }
+        for (int i = 0; i < batch.size(); i++) {
+            PluginWrapper<P> wrapper = batch.get(i);
+            // only the time applying the registrations, waiting for the plugin is not part of its sequential time
+            long pluginStart = System.nanoTime();
+            // apply the registrations in the order of the plugins
+            for (Runnable registration : buffers.get(i)) {
+                try {
+                    registration.run();
+                } catch (Throwable throwable) {
+                    RoughlyEnoughItemsCore.LOGGER.error(wrapper.getPluginProviderName() + " plugin failed to " + sectionName + "!", throwable);
+                }
+            }
+            sequential += System.nanoTime() - pluginStart;
+        }
+        return new long[]{sequential, System.nanoTime() - start};
+    }
+    
+    private static class ParallelReload {
+        private static final ExecutorService EXECUTOR = Executors.newFixedThreadPool(Math.max(1, Runtime.getRuntime().availableProcessors() - 1), new ThreadFactory() {
+            private final AtomicInteger id = new AtomicInteger();
+            
+            @Override
+            public Thread newThread(Runnable task) {
+                Thread thread = new Thread(task, "REI-ParallelReload-" + id.getAndIncrement());
+                thread.setDaemon(true);
+                thread.setContextClassLoader(PluginManagerImpl.class.getClassLoader());
+                thread.setUncaughtExceptionHandler(($, exception) -> {
+                    RoughlyEnoughItemsCore.LOGGER.throwException(exception);
+                });
+                return thread;
+            }
+        });
+    }
+    
     private void queueExecution(Runnable runnable) {
         MinecraftServer server = GameInstance.getServer();
         if (server != null) {
@@ -314,7 +421,7 @@ public class PluginManagerImpl<P extends REIPlugin<?>> implements PluginManager<
                         }
                     }
                     
-                    pluginSection(stage, "reloadable-plugin/" + name(reloadableClass) + "/", plugins, reloadable, (plugin, sink) -> {
+                    BiConsumer<PluginWrapper<P>, SectionPluginSink> pluginConsumer = (plugin, sink) -> {
                         try (PerformanceLogger.Plugin.Inner inner = perfLogger.plugin(new Pair<>(plugin.provider, plugin.plugin))) {
                             sink.accept(true, () -> {
                                 for (Reloadable<P> listener : reloadables) {
@@ -338,7 +445,13 @@ public class PluginManagerImpl<P extends REIPlugin<?>> implements PluginManager<
                                 }
                             });
                         }
-                    });
+                    };
+                    
+                    if (PARALLEL_RELOAD && reloadable instanceof BufferedReloadable) {
+                        parallelPluginSection(stage, "reloadable-plugin/" + name(reloadableClass) + "/", plugins, reloadable, pluginConsumer);
+                    } else {
+                        pluginSection(stage, "reloadable-plugin/" + name(reloadableClass) + "/", plugins, reloadable, pluginConsumer);
+                    }
                     
                     try (PerformanceLogger.Plugin.Inner inner = perfLogger.stage("reloadable-plugin/" + name(reloadableClass) + "/prompt-others-after")) {
                         for (Reloadable<P> listener : reloadables) {
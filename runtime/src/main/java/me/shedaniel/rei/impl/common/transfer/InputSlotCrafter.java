@@ -23,6 +23,9 @@
 
 package me.shedaniel.rei.impl.common.transfer;
 
+import it.unimi.dsi.fastutil.ints.Int2ObjectMap;
+import it.unimi.dsi.fastutil.ints.Int2ObjectMaps;
+import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
 import it.unimi.dsi.fastutil.ints.IntArrayList;
 import it.unimi.dsi.fastutil.ints.IntList;
 import me.shedaniel.rei.api.common.category.CategoryIdentifier;
@@ -42,6 +45,8 @@ import net.minecraft.world.item.ItemStack;
 import net.minecraft.world.item.crafting.Ingredient;
 import org.jetbrains.annotations.Nullable;
 
+import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Objects;
@@ -53,6 +58,7 @@ public class InputSlotCrafter<T extends AbstractContainerMenu, C extends Contain
     private Iterable<SlotAccessor> inputStacks;
     private Iterable<SlotAccessor> inventoryStacks;
     private ServerPlayer player;
+    private Int2ObjectMap<Deque<SlotAccessor>> inventoryIndex = Int2ObjectMaps.emptyMap();
     
     private InputSlotCrafter(CategoryIdentifier<D> category, T container) {
         this.category = category;
@@ -86,8 +92,12 @@ public class InputSlotCrafter<T extends AbstractContainerMenu, C extends Contain
             ingredients.add(CollectionUtils.toIngredient(itemStacks));
         }
         
-        if (recipeFinder.findRecipe(ingredients, null)) {
-            this.fillInputSlots(recipeFinder, ingredients, hasShift);
+        // the item ids of the first lookup are reused when filling the slots
+        IntList recipeItemIds = new IntArrayList();
+        int recipeCrafts = hasShift ? recipeFinder.countRecipeCrafts(ingredients, recipeItemIds)
+                : recipeFinder.findRecipe(ingredients, recipeItemIds) ? 1 : 0;
+        if (recipeCrafts > 0) {
+            this.fillInputSlots(recipeFinder, ingredients, recipeItemIds, recipeCrafts);
         } else {
             this.cleanInputs();
             this.menuInfo.markDirty(this);
@@ -98,6 +108,7 @@ public class InputSlotCrafter<T extends AbstractContainerMenu, C extends Contain
     }
     
     public void alignRecipeToGrid(Iterable<SlotAccessor> inputStacks, Iterator<Integer> recipeItemIds, int craftsAmount) {
+        this.inventoryIndex = indexInventory();
         for (SlotAccessor inputStack : inputStacks) {
             if (!recipeItemIds.hasNext()) {
                 return;
@@ -110,48 +121,54 @@ public class InputSlotCrafter<T extends AbstractContainerMenu, C extends Contain
     public void acceptAlignedInput(Integer recipeItemId, SlotAccessor inputStack, int craftsAmount) {
         ItemStack toBeTakenStack = RecipeFinder.getStackFromId(recipeItemId);
         if (!toBeTakenStack.isEmpty()) {
-            for (int i = 0; i < craftsAmount; ++i) {
-                this.fillInputSlot(inputStack, toBeTakenStack);
-            }
+            this.fillInputSlot(inputStack, toBeTakenStack, craftsAmount);
         }
     }
     
-    protected void fillInputSlot(SlotAccessor slot, ItemStack toBeTakenStack) {
-        SlotAccessor takenSlot = this.takeInventoryStack(toBeTakenStack);
-        if (takenSlot != null) {
+    /**
+     * Moves {@code amount} items into the slot, taking them from the inventory slots in order, like moving them one by one.
+     */
+    protected void fillInputSlot(SlotAccessor slot, ItemStack toBeTakenStack, int amount) {
+        Deque<SlotAccessor> sources = inventoryIndex.get(RecipeFinder.getItemId(toBeTakenStack));
+        if (sources == null) return;
+        Iterator<SlotAccessor> iterator = sources.iterator();
+        while (amount > 0 && iterator.hasNext()) {
+            SlotAccessor takenSlot = iterator.next();
             ItemStack takenStack = takenSlot.getItemStack().copy();
-            if (!takenStack.isEmpty()) {
-                if (takenStack.getCount() > 1) {
-                    takenSlot.takeStack(1);
-                } else {
-                    takenSlot.setItemStack(ItemStack.EMPTY);
-                }
-                
-                takenStack.setCount(1);
-                if (slot.getItemStack().isEmpty()) {
-                    slot.setItemStack(takenStack);
-                } else {
-                    slot.getItemStack().grow(1);
-                }
+            if (!isTakeable(toBeTakenStack, takenStack)) {
+                iterator.remove();
+                continue;
             }
-        }
-    }
-    
-    protected void fillInputSlots(RecipeFinder recipeFinder, NonNullList<Ingredient> ingredients, boolean hasShift) {
-        int recipeCrafts = recipeFinder.countRecipeCrafts(ingredients, null);
-        int amountToFill = hasShift ? recipeCrafts : 1;
-        IntList recipeItemIds = new IntArrayList();
-        if (recipeFinder.findRecipe(ingredients, recipeItemIds, amountToFill)) {
-            int finalCraftsAmount = amountToFill;
             
-            for (int itemId : recipeItemIds) {
-                finalCraftsAmount = Math.min(finalCraftsAmount, RecipeFinder.getStackFromId(itemId).getMaxStackSize());
+            int taken = Math.min(amount, takenStack.getCount());
+            if (takenStack.getCount() > taken) {
+                takenSlot.takeStack(taken);
+            } else {
+                takenSlot.setItemStack(ItemStack.EMPTY);
+                iterator.remove();
             }
             
-            if (recipeFinder.findRecipe(ingredients, recipeItemIds, finalCraftsAmount)) {
-                this.cleanInputs();
-                this.alignRecipeToGrid(inputStacks, recipeItemIds.iterator(), finalCraftsAmount);
+            takenStack.setCount(taken);
+            if (slot.getItemStack().isEmpty()) {
+                slot.setItemStack(takenStack);
+            } else {
+                slot.getItemStack().grow(taken);
             }
+            amount -= taken;
+        }
+    }
+    
+    protected void fillInputSlots(RecipeFinder recipeFinder, NonNullList<Ingredient> ingredients, IntList recipeItemIds, int recipeCrafts) {
+        int finalCraftsAmount = recipeCrafts;
+        
+        for (int itemId : recipeItemIds) {
+            finalCraftsAmount = Math.min(finalCraftsAmount, RecipeFinder.getStackFromId(itemId).getMaxStackSize());
+        }
+        
+        // the item ids only have to be looked up again if the amount is capped by the max stack size
+        if (finalCraftsAmount == recipeCrafts || recipeFinder.findRecipe(ingredients, recipeItemIds, finalCraftsAmount)) {
+            this.cleanInputs();
+            this.alignRecipeToGrid(inputStacks, recipeItemIds.iterator(), finalCraftsAmount);
         }
     }
     
@@ -162,8 +179,7 @@ public class InputSlotCrafter<T extends AbstractContainerMenu, C extends Contain
     @Nullable
     public SlotAccessor takeInventoryStack(ItemStack itemStack) {
         for (SlotAccessor inventoryStack : inventoryStacks) {
-            ItemStack itemStack1 = inventoryStack.getItemStack();
-            if (!itemStack1.isEmpty() && areItemsEqual(itemStack, itemStack1) && !itemStack1.isDamaged() && !itemStack1.isEnchanted() && !itemStack1.hasCustomHoverName()) {
+            if (isTakeable(itemStack, inventoryStack.getItemStack())) {
                 return inventoryStack;
             }
         }
@@ -171,6 +187,25 @@ public class InputSlotCrafter<T extends AbstractContainerMenu, C extends Contain
         return null;
     }
     
+    /**
+     * Indexes the non-empty inventory slots by item id, in the order of the inventory slots.
+     * Slots are only removed from the head while filling, as they are taken in order.
+     */
+    private Int2ObjectMap<Deque<SlotAccessor>> indexInventory() {
+        Int2ObjectMap<Deque<SlotAccessor>> index = new Int2ObjectOpenHashMap<>();
+        for (SlotAccessor inventoryStack : inventoryStacks) {
+            ItemStack itemStack = inventoryStack.getItemStack();
+            if (!itemStack.isEmpty()) {
+                index.computeIfAbsent(RecipeFinder.getItemId(itemStack), id -> new ArrayDeque<>()).add(inventoryStack);
+            }
+        }
+        return index;
+    }
+    
+    private static boolean isTakeable(ItemStack itemStack, ItemStack inventoryStack) {
+        return !inventoryStack.isEmpty() && areItemsEqual(itemStack, inventoryStack) && !inventoryStack.isDamaged() && !inventoryStack.isEnchanted() && !inventoryStack.hasCustomHoverName();
+    }
+    
     private static boolean areItemsEqual(ItemStack stack1, ItemStack stack2) {
         return stack1.getItem() == stack2.getItem() && ItemStack.tagMatches(stack1, stack2);
     }
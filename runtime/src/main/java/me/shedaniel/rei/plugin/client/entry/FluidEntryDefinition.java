@@ -31,6 +31,7 @@ import dev.architectury.hooks.fluid.FluidStackHooks;
 import dev.architectury.platform.Platform;
 import dev.architectury.utils.Env;
 import dev.architectury.utils.EnvExecutor;
+import it.unimi.dsi.fastutil.HashCommon;
 import me.shedaniel.math.Point;
 import me.shedaniel.math.Rectangle;
 import me.shedaniel.rei.api.client.entry.renderer.AbstractEntryRenderer;
@@ -150,10 +151,10 @@ public class FluidEntryDefinition implements EntryDefinition<FluidStack>, EntryS
     
     @Override
     public long hash(EntryStack<FluidStack> entry, FluidStack value, ComparisonContext context) {
-        int code = 1;
-        code = 31 * code + value.getFluid().hashCode();
-        code = 31 * code + Long.hashCode(FluidComparatorRegistry.getInstance().hashOf(context, value));
-        return code;
+        long code = 1;
+        code = 31L * code + value.getFluid().hashCode();
+        code = 31L * code + FluidComparatorRegistry.getInstance().hashOf(context, value);
+        return HashCommon.mix(code);
     }
     
     @Override
@@ -30,6 +30,7 @@ import com.mojang.blaze3d.systems.RenderSystem;
 import com.mojang.blaze3d.vertex.PoseStack;
 import dev.architectury.utils.Env;
 import dev.architectury.utils.EnvExecutor;
+import it.unimi.dsi.fastutil.HashCommon;
 import it.unimi.dsi.fastutil.objects.ReferenceOpenHashSet;
 import it.unimi.dsi.fastutil.objects.ReferenceSet;
 import me.shedaniel.math.Point;
@@ -139,10 +140,10 @@ public class ItemEntryDefinition implements EntryDefinition<ItemStack>, EntrySer
     
     @Override
     public long hash(EntryStack<ItemStack> entry, ItemStack value, ComparisonContext context) {
-        int code = 1;
-        code = 31 * code + System.identityHashCode(value.getItem());
-        code = 31 * code + Long.hashCode(ItemComparatorRegistry.getInstance().hashOf(context, value));
-        return code;
+        long code = 1;
+        code = 31L * code + System.identityHashCode(value.getItem());
+        code = 31L * code + ItemComparatorRegistry.getInstance().hashOf(context, value);
+        return HashCommon.mix(code);
     }
     
     @Override